@@ -0,0 +1,47 @@
+package mapper.benchmarks;
+
+import mapper.enums.AccessorStrategy;
+import mapper.serializers.Serializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing and parsing documents with each {@link AccessorStrategy}, so the cost of field
+ * access is compared on the same shapes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class AccessorBenchmark {
+    @Param({"REFLECTION", "METHOD_HANDLES"})
+    private AccessorStrategy strategy;
+
+    @Param({"flat", "nested"})
+    private String shape;
+
+    private Serializer serializer;
+    private Object object;
+    private String input;
+
+    @Setup
+    public void setup() {
+        serializer = new Serializer();
+        serializer.setAccessorStrategy(strategy);
+        object = Models.create(shape);
+        input = serializer.writeToString(object);
+    }
+
+    @Benchmark
+    public String writeToString() {
+        return serializer.writeToString(object);
+    }
+
+    @Benchmark
+    public Object readFromString() {
+        return serializer.readFromString(object.getClass(), input);
+    }
+}
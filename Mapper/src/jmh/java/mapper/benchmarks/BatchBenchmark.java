@@ -0,0 +1,81 @@
+package mapper.benchmarks;
+
+import mapper.serializers.Serializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing and reading 10,000 small objects one call per object and in one batch call
+ * over the same stream.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class BatchBenchmark {
+    private static final int COUNT = 10_000;
+
+    private Serializer serializer;
+    private List<Object> objects;
+    private List<String> documents;
+    private byte[] batch;
+
+    @Setup
+    public void setup() throws IOException {
+        serializer = new Serializer();
+        objects = new ArrayList<>();
+        documents = new ArrayList<>();
+        for (int i = 0; i < COUNT; ++i) {
+            Object object = Models.create("flat");
+            objects.add(object);
+            documents.add(serializer.writeToString(object));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serializer.writeAll(objects, out);
+        batch = out.toByteArray();
+    }
+
+    @Benchmark
+    public void writeEach() throws IOException {
+        OutputStream out = OutputStream.nullOutputStream();
+        for (Object object : objects) {
+            out.write(serializer.writeToString(object).getBytes(StandardCharsets.UTF_8));
+            out.write('\n');
+        }
+    }
+
+    @Benchmark
+    public void writeAll() throws IOException {
+        serializer.writeAll(objects, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public int readEach() {
+        int count = 0;
+        for (String document : documents) {
+            count += serializer.readFromString(objects.get(0).getClass(), document) != null ? 1 : 0;
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int readAll() {
+        int count = 0;
+        Iterator<?> it = serializer.readAll(objects.get(0).getClass(), new ByteArrayInputStream(batch)).iterator();
+        while (it.hasNext()) {
+            count += it.next() != null ? 1 : 0;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,66 @@
+package mapper.benchmarks;
+
+import mapper.serializers.BinarySerializer;
+import mapper.serializers.Serializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link BinarySerializer} against {@link Serializer} on the same documents,
+ * both writing to and reading from byte streams. Sizes are printed by {@link SizeReport}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryBenchmark {
+    @Param({"flat", "nested", "collections", "dates", "strings"})
+    private String shape;
+
+    private Serializer text;
+    private BinarySerializer binary;
+    private Object object;
+    private Class<?> type;
+    private byte[] textBytes;
+    private byte[] binaryBytes;
+
+    @Setup
+    public void setup() throws IOException {
+        text = new Serializer();
+        binary = new BinarySerializer();
+        object = Models.create(shape);
+        type = object.getClass();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        text.write(object, out);
+        textBytes = out.toByteArray();
+        binaryBytes = binary.writeToBytes(object);
+    }
+
+    @Benchmark
+    public void writeText() throws IOException {
+        text.write(object, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void writeBinary() throws IOException {
+        binary.write(object, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public Object readText() throws IOException {
+        return text.read(type, new ByteArrayInputStream(textBytes));
+    }
+
+    @Benchmark
+    public Object readBinary() throws IOException {
+        return binary.read(type, new ByteArrayInputStream(binaryBytes));
+    }
+}
@@ -0,0 +1,60 @@
+package mapper.benchmarks;
+
+import mapper.interfaces.Cleaner;
+import mapper.utils.OutputBuffer;
+import mapper.utils.SinglePassCleaner;
+import mapper.utils.StringCleaner;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escaping and recovering of String values by {@link StringCleaner} and {@link SinglePassCleaner}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CleanerBenchmark {
+    @Param({"plain", "escaped"})
+    private String kind;
+
+    @Param({"StringCleaner", "SinglePassCleaner"})
+    private String implementation;
+
+    private Cleaner cleaner;
+    private OutputBuffer out;
+    private String raw;
+    private String cleaned;
+
+    @Setup
+    public void setup() {
+        cleaner = implementation.equals("StringCleaner") ? new StringCleaner() : new SinglePassCleaner();
+        out = new OutputBuffer(OutputStream.nullOutputStream());
+        raw = kind.equals("plain")
+                ? "Lorem ipsum dolor sit amet, consectetur adipiscing elit, строка текста"
+                : "{\"key\": [1, 2, 3], \"nested\": {\"list\": [\"a\", \"b\"]}} строка";
+        cleaned = cleaner.cleanString(raw);
+    }
+
+    @Benchmark
+    public String clean() {
+        return cleaner.cleanString(raw);
+    }
+
+    /**
+     * Escaping as done by the writer: appended to an output buffer streaming to a null sink.
+     */
+    @Benchmark
+    public void cleanToBuffer() {
+        cleaner.cleanString(raw, out);
+    }
+
+    @Benchmark
+    public String recover() {
+        return cleaner.recoverString(cleaned);
+    }
+}
@@ -0,0 +1,54 @@
+package mapper.benchmarks;
+
+import mapper.serializers.Serializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Getting one value out of a small document ("flat") and looking for it in a document of
+ * large collections ("collections"), by binding the document to its class and by path extraction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class ExtractBenchmark {
+    @Param({"flat", "collections"})
+    private String shape;
+
+    private Serializer serializer;
+    private Class<?> type;
+    private String input;
+    private byte[] bytes;
+    private String path;
+
+    @Setup
+    public void setup() {
+        serializer = new Serializer();
+        Object object = Models.create(shape);
+        type = object.getClass();
+        input = serializer.writeToString(object);
+        bytes = input.getBytes(StandardCharsets.UTF_8);
+        // Bulk has only collections, so an absent property is looked for, which skips all of them.
+        path = shape.equals("flat") ? "name" : "missing";
+    }
+
+    @Benchmark
+    public Object readFromString() {
+        return serializer.readFromString(type, input);
+    }
+
+    @Benchmark
+    public String extract() {
+        return serializer.extract(input, path);
+    }
+
+    @Benchmark
+    public String extractBytes() {
+        return serializer.extract(bytes, path);
+    }
+}
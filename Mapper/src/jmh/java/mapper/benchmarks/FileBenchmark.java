@@ -0,0 +1,61 @@
+package mapper.benchmarks;
+
+import mapper.enums.FileMode;
+import mapper.serializers.Serializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the File entry points of {@link Serializer} for both {@link FileMode}s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileBenchmark {
+    @Param({"flat", "nested", "collections", "dates", "strings"})
+    private String shape;
+
+    @Param({"STREAM", "MAPPED"})
+    private FileMode fileMode;
+
+    private Serializer serializer;
+    private Object object;
+    private Class<?> type;
+    private File readFile;
+    private File writeFile;
+
+    @Setup
+    public void setup() throws IOException {
+        serializer = new Serializer();
+        serializer.setFileMode(fileMode);
+        object = Models.create(shape);
+        type = object.getClass();
+
+        readFile = Files.createTempFile("mapper-read", ".txt").toFile();
+        writeFile = Files.createTempFile("mapper-write", ".txt").toFile();
+        serializer.write(object, readFile);
+    }
+
+    @TearDown
+    public void tearDown() {
+        readFile.delete();
+        writeFile.delete();
+    }
+
+    @Benchmark
+    public void writeFile() throws IOException {
+        serializer.write(object, writeFile);
+    }
+
+    @Benchmark
+    public Object readFile() throws IOException {
+        return serializer.read(type, readFile);
+    }
+}
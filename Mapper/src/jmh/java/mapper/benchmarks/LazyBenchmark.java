@@ -0,0 +1,41 @@
+package mapper.benchmarks;
+
+import mapper.serializers.Serializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a document with a 500,000-element list of objects from a String eagerly and with
+ * lazy list fields, without touching the list and with accessing it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class LazyBenchmark {
+    @Param({"false", "true"})
+    private boolean lazy;
+
+    private Serializer serializer;
+    private String input;
+
+    @Setup
+    public void setup() {
+        serializer = new Serializer();
+        serializer.setLazyCollections(lazy);
+        input = serializer.writeToString(Models.create("catalog"));
+    }
+
+    @Benchmark
+    public Object read() {
+        return serializer.readFromString(Catalog.class, input);
+    }
+
+    @Benchmark
+    public int readAndAccess() {
+        return serializer.readFromString(Catalog.class, input).size();
+    }
+}
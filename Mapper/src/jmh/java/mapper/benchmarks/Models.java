@@ -0,0 +1,301 @@
+package mapper.benchmarks;
+
+import mapper.annotations.DateFormat;
+import mapper.annotations.Exported;
+import mapper.annotations.PropertyName;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+/**
+ * Representative document shapes used by the benchmarks.
+ */
+final class Models {
+    private Models() {
+    }
+
+    static Object create(String shape) {
+        return switch (shape) {
+            case "flat" -> Flat.create(1);
+            case "nested" -> Node.create(6, 3);
+            case "collections" -> Bulk.create(10_000);
+            case "dates" -> Dates.create(1_000);
+            case "strings" -> Strings.create(1_000);
+            case "arrays" -> Samples.create(1_000_000);
+            case "lists" -> BoxedSamples.create(1_000_000);
+            case "maps" -> Lookup.create(100_000);
+            case "entries" -> EntryList.create(100_000);
+            case "catalog" -> Catalog.create(500_000);
+            default -> throw new IllegalArgumentException("Unknown shape " + shape);
+        };
+    }
+}
+
+@Exported
+class Flat {
+    public Flat() {
+    }
+
+    private int id;
+    private long timestamp;
+    private double price;
+    private boolean active;
+    private short level;
+    @PropertyName("count")
+    private Integer boxedCount;
+    private String name;
+
+    static Flat create(int seed) {
+        Flat flat = new Flat();
+        flat.id = seed;
+        flat.timestamp = 1_650_000_000_000L + seed;
+        flat.price = seed * 1.25;
+        flat.active = seed % 2 == 0;
+        flat.level = (short) (seed % 100);
+        flat.boxedCount = seed * 7;
+        flat.name = "item-" + seed;
+        return flat;
+    }
+}
+
+@Exported
+class Node {
+    public Node() {
+    }
+
+    private int value;
+    private String name;
+    private Flat payload;
+    private List<Node> children;
+
+    static Node create(int depth, int fanOut) {
+        Node node = new Node();
+        node.value = depth;
+        node.name = "node-" + depth;
+        node.payload = Flat.create(depth);
+        if (depth > 0) {
+            node.children = new ArrayList<>();
+            for (int i = 0; i < fanOut; ++i) {
+                node.children.add(create(depth - 1, fanOut));
+            }
+        }
+        return node;
+    }
+}
+
+@Exported
+class Bulk {
+    public Bulk() {
+    }
+
+    private List<Integer> ints;
+    private Set<String> strings;
+    private List<Double> doubles;
+    private List<Flat> objects;
+
+    static Bulk create(int size) {
+        Bulk bulk = new Bulk();
+        bulk.ints = new ArrayList<>(size);
+        bulk.strings = new HashSet<>(size);
+        bulk.doubles = new ArrayList<>(size);
+        bulk.objects = new ArrayList<>(size / 10);
+        for (int i = 0; i < size; ++i) {
+            bulk.ints.add(i);
+            bulk.strings.add("s" + i);
+            bulk.doubles.add(i / 3.0);
+            if (i % 10 == 0) {
+                bulk.objects.add(Flat.create(i));
+            }
+        }
+        return bulk;
+    }
+}
+
+@Exported
+class Samples {
+    public Samples() {
+    }
+
+    private int[] ids;
+    private double[] values;
+
+    static Samples create(int size) {
+        Samples samples = new Samples();
+        samples.ids = new int[size];
+        samples.values = new double[size];
+        for (int i = 0; i < size; ++i) {
+            samples.ids[i] = i * 31;
+            samples.values[i] = i / 4.0;
+        }
+        return samples;
+    }
+}
+
+@Exported
+class BoxedSamples {
+    public BoxedSamples() {
+    }
+
+    private List<Integer> ids;
+    private List<Double> values;
+
+    static BoxedSamples create(int size) {
+        BoxedSamples samples = new BoxedSamples();
+        samples.ids = new ArrayList<>(size);
+        samples.values = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            samples.ids.add(i * 31);
+            samples.values.add(i / 4.0);
+        }
+        return samples;
+    }
+}
+
+@Exported
+class Catalog {
+    public Catalog() {
+    }
+
+    private List<Flat> items;
+
+    static Catalog create(int size) {
+        Catalog catalog = new Catalog();
+        catalog.items = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            catalog.items.add(Flat.create(i));
+        }
+        return catalog;
+    }
+
+    int size() {
+        return items.size();
+    }
+}
+
+@Exported
+class Lookup {
+    public Lookup() {
+    }
+
+    private Map<String, Integer> counts;
+
+    static Lookup create(int size) {
+        Lookup lookup = new Lookup();
+        lookup.counts = new HashMap<>(size * 2);
+        for (int i = 0; i < size; ++i) {
+            lookup.counts.put("key-" + i, i);
+        }
+        return lookup;
+    }
+}
+
+/**
+ * The same content as {@link Lookup} flattened into entry objects, the way maps
+ * had to be exported before map fields were supported.
+ */
+@Exported
+class EntryList {
+    public EntryList() {
+    }
+
+    private List<Entry> counts;
+
+    static EntryList create(int size) {
+        EntryList list = new EntryList();
+        list.counts = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            Entry entry = new Entry();
+            entry.key = "key-" + i;
+            entry.value = i;
+            list.counts.add(entry);
+        }
+        return list;
+    }
+}
+
+@Exported
+class Entry {
+    public Entry() {
+    }
+
+    String key;
+    Integer value;
+}
+
+@Exported
+class Dates {
+    public Dates() {
+    }
+
+    private LocalDate date;
+    private LocalTime time;
+    private LocalDateTime dateTime;
+    @DateFormat("dd/MM/yyyy")
+    private LocalDate formattedDate;
+    @DateFormat("HH-mm-ss")
+    private LocalTime formattedTime;
+    @DateFormat("yyyy/MM/dd HH:mm")
+    private LocalDateTime formattedDateTime;
+    private List<Event> events;
+
+    static Dates create(int size) {
+        Dates dates = new Dates();
+        LocalDateTime base = LocalDateTime.of(2022, 4, 15, 12, 30, 15, 123_000_000);
+        dates.date = base.toLocalDate();
+        dates.time = base.toLocalTime();
+        dates.dateTime = base;
+        dates.formattedDate = base.toLocalDate();
+        dates.formattedTime = base.toLocalTime();
+        dates.formattedDateTime = base;
+        dates.events = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            dates.events.add(Event.create(base.plusMinutes(i * 37L)));
+        }
+        return dates;
+    }
+}
+
+@Exported
+class Event {
+    public Event() {
+    }
+
+    @DateFormat("yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime created;
+    @DateFormat("dd.MM.yyyy")
+    private LocalDate day;
+    private LocalDateTime updated;
+    private LocalTime at;
+
+    static Event create(LocalDateTime time) {
+        Event event = new Event();
+        event.created = time;
+        event.day = time.toLocalDate();
+        event.updated = time.plusSeconds(42);
+        event.at = time.toLocalTime();
+        return event;
+    }
+}
+
+@Exported
+class Strings {
+    public Strings() {
+    }
+
+    private String title;
+    private String description;
+    private List<String> lines;
+
+    static Strings create(int size) {
+        Strings strings = new Strings();
+        strings.title = "Заголовок {with} [brackets] and \"quotes\"";
+        strings.description = "Lorem ipsum dolor sit amet, ".repeat(40);
+        strings.lines = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            strings.lines.add("line " + i + ": {\"key\": [1, 2, 3]} строка текста, достаточно длинная");
+        }
+        return strings;
+    }
+}
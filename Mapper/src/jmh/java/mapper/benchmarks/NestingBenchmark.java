@@ -0,0 +1,43 @@
+package mapper.benchmarks;
+
+import mapper.serializers.Serializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a chain of objects nested {@code depth} levels deep through one-element lists.
+ * With {@code threshold = 0} collections are parsed directly; with a threshold every
+ * collection is first measured for parallel parsing, which must stay linear in the
+ * size of the input however deep the nesting is.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(value = 1, jvmArgs = "-Xss16m")
+public class NestingBenchmark {
+    @Param({"100", "1000"})
+    private int depth;
+
+    @Param({"0", "1000"})
+    private int threshold;
+
+    private Serializer serializer;
+    private String input;
+
+    @Setup
+    public void setup() {
+        serializer = new Serializer();
+        serializer.setParallelThreshold(threshold);
+        serializer.setForkJoinPool(new ForkJoinPool(2));
+        input = serializer.writeToString(Node.create(depth, 1));
+    }
+
+    @Benchmark
+    public Object readFromString() {
+        return serializer.readFromString(Node.class, input);
+    }
+}
@@ -0,0 +1,50 @@
+package mapper.benchmarks;
+
+import mapper.serializers.Serializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing and parsing a document with a 500,000-element list of objects sequentially
+ * ({@code threshold = 0}) and split into chunks processed on the common pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class ParallelBenchmark {
+    @Param({"0", "10000"})
+    private int threshold;
+
+    private Serializer serializer;
+    private Object object;
+    private String input;
+
+    @Setup
+    public void setup() {
+        serializer = new Serializer();
+        serializer.setParallelThreshold(threshold);
+        object = Models.create("catalog");
+        input = serializer.writeToString(object);
+    }
+
+    @Benchmark
+    public void writeOutputStream() throws IOException {
+        serializer.write(object, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public String writeToString() {
+        return serializer.writeToString(object);
+    }
+
+    @Benchmark
+    public Object readFromString() {
+        return serializer.readFromString(object.getClass(), input);
+    }
+}
@@ -0,0 +1,62 @@
+package mapper.benchmarks;
+
+import mapper.serializers.BinarySerializer;
+import mapper.serializers.Serializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One million ints and doubles held in primitive array fields ({@code arrays})
+ * against the same values in {@code List<Integer>} and {@code List<Double>} ({@code lists}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class PrimitiveArrayBenchmark {
+    @Param({"arrays", "lists"})
+    private String shape;
+
+    private Serializer text;
+    private BinarySerializer binary;
+    private Object object;
+    private Class<?> type;
+    private String textForm;
+    private byte[] binaryBytes;
+
+    @Setup
+    public void setup() {
+        text = new Serializer();
+        binary = new BinarySerializer();
+        object = Models.create(shape);
+        type = object.getClass();
+        textForm = text.writeToString(object);
+        binaryBytes = binary.writeToBytes(object);
+    }
+
+    @Benchmark
+    public void writeText() throws IOException {
+        text.write(object, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public Object readText() {
+        return text.readFromString(type, textForm);
+    }
+
+    @Benchmark
+    public void writeBinary() throws IOException {
+        binary.write(object, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public Object readBinary() throws IOException {
+        return binary.read(type, new ByteArrayInputStream(binaryBytes));
+    }
+}
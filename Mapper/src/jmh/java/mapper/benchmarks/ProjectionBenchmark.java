@@ -0,0 +1,40 @@
+package mapper.benchmarks;
+
+import mapper.serializers.Serializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing the "collections" document from a String fully and with only one of its four
+ * collection fields selected.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class ProjectionBenchmark {
+    private static final Set<String> PROPERTIES = Set.of("ints");
+
+    private Serializer serializer;
+    private String input;
+
+    @Setup
+    public void setup() {
+        serializer = new Serializer();
+        input = serializer.writeToString(Models.create("collections"));
+    }
+
+    @Benchmark
+    public Object readAll() {
+        return serializer.readFromString(Bulk.class, input);
+    }
+
+    @Benchmark
+    public Object readProjection() {
+        return serializer.readFromString(Bulk.class, input, PROPERTIES);
+    }
+}
@@ -0,0 +1,60 @@
+package mapper.benchmarks;
+
+import mapper.serializers.Serializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the String and stream entry points of {@link Serializer}.
+ * Run with {@code -prof gc} to get allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+    @Param({"flat", "nested", "collections", "dates", "strings"})
+    private String shape;
+
+    private Serializer serializer;
+    private Object object;
+    private Class<?> type;
+    private String serialized;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() {
+        serializer = new Serializer();
+        object = Models.create(shape);
+        type = object.getClass();
+        serialized = serializer.writeToString(object);
+        bytes = serialized.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String writeToString() {
+        return serializer.writeToString(object);
+    }
+
+    @Benchmark
+    public void writeOutputStream() throws IOException {
+        serializer.write(object, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public Object readFromString() {
+        return serializer.readFromString(type, serialized);
+    }
+
+    @Benchmark
+    public Object readInputStream() throws IOException {
+        return serializer.read(type, new ByteArrayInputStream(bytes));
+    }
+}
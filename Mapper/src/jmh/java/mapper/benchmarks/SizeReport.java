@@ -0,0 +1,34 @@
+package mapper.benchmarks;
+
+import mapper.serializers.BinarySerializer;
+import mapper.serializers.Serializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Prints the encoded size of every benchmark shape in the text and the binary format.
+ */
+public final class SizeReport {
+    private static final String[] SHAPES = {"flat", "nested", "collections", "dates", "strings", "arrays", "lists", "maps", "entries"};
+
+    private SizeReport() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Serializer text = new Serializer();
+        BinarySerializer binary = new BinarySerializer();
+
+        System.out.println("| Shape | Serializer, bytes | BinarySerializer, bytes | Ratio |");
+        System.out.println("|---|---:|---:|---:|");
+        for (String shape : SHAPES) {
+            Object object = Models.create(shape);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            text.write(object, out);
+            int textSize = out.size();
+            int binarySize = binary.writeToBytes(object).length;
+            System.out.printf("| %s | %,d | %,d | %.2f |%n", shape, textSize, binarySize,
+                    (double) binarySize / textSize);
+        }
+    }
+}
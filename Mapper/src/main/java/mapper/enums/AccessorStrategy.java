@@ -0,0 +1,6 @@
+package mapper.enums;
+
+public enum AccessorStrategy {
+    REFLECTION,
+    METHOD_HANDLES,
+}
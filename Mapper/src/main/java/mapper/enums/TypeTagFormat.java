@@ -0,0 +1,6 @@
+package mapper.enums;
+
+public enum TypeTagFormat {
+    INLINE,
+    DICTIONARY,
+}
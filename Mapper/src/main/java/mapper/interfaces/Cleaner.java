@@ -1,6 +1,16 @@
 package mapper.interfaces;
 
+import mapper.utils.OutputBuffer;
+
 public interface Cleaner {
     String cleanString(String str);
     String recoverString(String str);
+
+    /**
+     * Appends {@code str} escaped like {@link #cleanString(String)} to {@code out}.
+     * Implementations can override it to avoid creating the escaped String.
+     */
+    default void cleanString(String str, OutputBuffer out) {
+        out.append(cleanString(str));
+    }
 }
@@ -4,6 +4,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.stream.Stream;
 
 public interface Mapper {
     /**
@@ -149,4 +150,46 @@ public interface Mapper {
      */
     void write(Object object, File file) throws IOException;
 
+    /**
+     * Сохраняет все объекты {@code objects} в {@link OutputStream} один за другим,
+     * в том же представлении, что и {@link #write(Object, OutputStream)}.
+     * Объекты записываются по мере обхода {@code objects} через один общий буфер.
+     * <p>
+     * Данный метод закрывает {@code outputStream}
+     * <p>
+     * Пример вызова:
+     *
+     * <pre>
+     * mapper.writeAll(reviewComments, new FileOutputStream("/tmp/reviews"));
+     * </pre>
+     *
+     * @param objects объекты для сохранения
+     * @param outputStream поток вывода
+     * @throws IOException в случае ошибки ввода-вывода
+     */
+    void writeAll(Iterable<?> objects, OutputStream outputStream) throws IOException;
+
+    /**
+     * Читает объекты класса {@code clazz}, записанные
+     * {@link #writeAll(Iterable, OutputStream)}, из {@code InputStream}'а.
+     * <p>
+     * Объекты читаются лениво, по одному при обходе возвращаемого {@link Stream}'а.
+     * Закрытие {@link Stream}'а закрывает {@code inputStream}. Ошибки ввода-вывода
+     * при обходе бросаются как {@link java.io.UncheckedIOException}.
+     * <p>
+     * Пример вызова:
+     *
+     * <pre>
+     * try (Stream&lt;ReviewComment&gt; comments = mapper.readAll(ReviewComment.class,
+     * new FileInputStream("/tmp/reviews"))) {
+     *     comments.forEach(System.out::println);
+     * }
+     * </pre>
+     *
+     * @param clazz       класс сохранённых экземпляров
+     * @param inputStream поток ввода с сохранёнными экземплярами
+     * @param <T>         тип элементов возвращаемого {@link Stream}'а
+     * @return {@link Stream} восстановленных экземпляров класса {@code clazz}
+     */
+    <T> Stream<T> readAll(Class<T> clazz, InputStream inputStream);
 }
@@ -0,0 +1,920 @@
+package mapper.serializers;
+
+import mapper.annotations.Exported;
+import mapper.enums.AccessorStrategy;
+import mapper.enums.UnknownPropertiesPolicy;
+import mapper.exceptions.ExportMapperException;
+import mapper.interfaces.Mapper;
+import mapper.utils.BinaryInput;
+import mapper.utils.BinaryOutput;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Thread-safe {@link Mapper} writing {@link Exported} objects in a compact binary form
+ * instead of text. Both sides have to use this mapper; the format is not readable by
+ * {@link Serializer}.
+ * <p>
+ * A document is a version byte followed by the root object. Every value starts with
+ * a tag byte. Integers are zigzag varints, floating point numbers are fixed-width
+ * little-endian, strings are UTF-8 with a varint length. Primitive arrays are a length
+ * followed by untagged elements, maps are a size followed by keys and values in turn.
+ * Class and property names are written once per document and referred to by index
+ * afterwards. Fields with {@link mapper.annotations.DateFormat} are stored as formatted
+ * strings, like in text.
+ * <p>
+ * The String methods of {@link Mapper} work with Base64 of the binary form.
+ * Shared references are not supported: cycles are rejected and shared objects
+ * are written once per reference.
+ */
+public class BinarySerializer implements Mapper {
+    private static final int VERSION = 1;
+
+    private static final int NULL = 0;
+    private static final int BOOLEAN = 1;
+    private static final int BYTE = 2;
+    private static final int SHORT = 3;
+    private static final int CHAR = 4;
+    private static final int INT = 5;
+    private static final int LONG = 6;
+    private static final int FLOAT = 7;
+    private static final int DOUBLE = 8;
+    private static final int STRING = 9;
+    private static final int ENUM = 10;
+    private static final int DATE = 11;
+    private static final int TIME = 12;
+    private static final int DATE_TIME = 13;
+    private static final int COLLECTION = 14;
+    private static final int OBJECT = 15;
+    private static final int ARRAY = 16;
+    private static final int MAP = 17;
+
+    private volatile AccessorStrategy accessorStrategy = AccessorStrategy.METHOD_HANDLES;
+    private final Map<String, Class<?>> classes = new ConcurrentHashMap<>();
+
+    public AccessorStrategy getAccessorStrategy() {
+        return accessorStrategy;
+    }
+
+    /**
+     * Selects how field values are read and written, see {@link Serializer#setAccessorStrategy}.
+     */
+    public void setAccessorStrategy(AccessorStrategy accessorStrategy) {
+        this.accessorStrategy = Objects.requireNonNull(accessorStrategy);
+    }
+
+    /**
+     * Reads an object from Base64 of its binary form.
+     */
+    @Override
+    public <T> T readFromString(Class<T> clazz, String input) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(input);
+        } catch (IllegalArgumentException e) {
+            throw new ExportMapperException("Incorrect Base64 input: " + e.getMessage());
+        }
+        return readFromBytes(clazz, bytes);
+    }
+
+    public <T> T readFromBytes(Class<T> clazz, byte[] input) {
+        return deserialize(clazz, new BinaryInput(input));
+    }
+
+    /**
+     * Returns the value at {@code path}, property names separated by dots ({@code "order.customer.id"}),
+     * without the classes of the document: properties off the path are skipped and type names
+     * are not resolved. Enum constants are returned as their names, fields with
+     * {@link mapper.annotations.DateFormat} as formatted strings. Reading stops at the value,
+     * so the rest of the document is not checked.
+     *
+     * @return the value, or null if it is null or some property of the path is absent
+     * @throws ExportMapperException if the path goes through a value that is not an object,
+     *                               or ends at an object, a collection, a map or an array
+     */
+    public Object extract(byte[] input, String path) {
+        String[] names = PathExtractor.split(path);
+        try {
+            return new BinaryReader(accessorStrategy, new BinaryInput(input)).extract(names);
+        } catch (UncheckedIOException | ExportMapperException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ExportMapperException(e.getMessage());
+        }
+    }
+
+    @Override
+    public <T> T read(Class<T> clazz, InputStream inputStream) throws IOException {
+        try (inputStream) {
+            return deserialize(clazz, new BinaryInput(inputStream));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public <T> T read(Class<T> clazz, File file) throws IOException {
+        return read(clazz, new FileInputStream(file));
+    }
+
+    private <T> T deserialize(Class<T> clazz, BinaryInput in) {
+        T obj = deserialize(clazz, in, accessorStrategy);
+        if (!in.isEnd()) {
+            throw new ExportMapperException("Unexpected data after the end of object");
+        }
+        return obj;
+    }
+
+    private <T> T deserialize(Class<T> clazz, BinaryInput in, AccessorStrategy strategy) {
+        try {
+            return clazz.cast(new BinaryReader(strategy, in).readDocument(clazz));
+        } catch (UncheckedIOException | ExportMapperException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ExportMapperException(e.getMessage());
+        }
+    }
+
+    /**
+     * Reads objects written by {@link #writeAll(Iterable, OutputStream)}: documents following
+     * each other, each with its own version byte and name tables.
+     */
+    @Override
+    public <T> Stream<T> readAll(Class<T> clazz, InputStream inputStream) {
+        AccessorStrategy strategy = accessorStrategy;
+        BinaryInput in = new BinaryInput(inputStream);
+
+        Iterator<T> records = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !in.isEnd();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return deserialize(clazz, in, strategy);
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(records,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        inputStream.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * Writes Base64 of the binary form of {@code object}.
+     */
+    @Override
+    public String writeToString(Object object) {
+        return Base64.getEncoder().encodeToString(writeToBytes(object));
+    }
+
+    public byte[] writeToBytes(Object object) {
+        BinaryOutput out = new BinaryOutput();
+        serialize(object, out);
+        return out.toByteArray();
+    }
+
+    @Override
+    public void write(Object object, OutputStream outputStream) throws IOException {
+        try (outputStream) {
+            BinaryOutput out = new BinaryOutput(outputStream);
+            serialize(object, out);
+            out.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public void write(Object object, File file) throws IOException {
+        write(object, new FileOutputStream(file));
+    }
+
+    /**
+     * Writes every object of {@code objects} as a separate document through one buffer.
+     */
+    @Override
+    public void writeAll(Iterable<?> objects, OutputStream outputStream) throws IOException {
+        try (outputStream) {
+            BinaryOutput out = new BinaryOutput(outputStream);
+            for (Object object : objects) {
+                serialize(object, out);
+            }
+            out.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void serialize(Object object, BinaryOutput out) {
+        try {
+            new BinaryWriter(accessorStrategy, out).writeDocument(object);
+        } catch (UncheckedIOException | ExportMapperException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ExportMapperException(e.getMessage());
+        }
+    }
+
+    class BinaryReader {
+        private final AccessorStrategy accessorStrategy;
+        private final BinaryInput in;
+        // Class names of the document by id, resolved on first use.
+        private final List<String> classNames = new ArrayList<>();
+        private final List<Class<?>> types = new ArrayList<>();
+        private final List<String> names = new ArrayList<>();
+
+        private BinaryReader(AccessorStrategy accessorStrategy, BinaryInput in) {
+            this.accessorStrategy = accessorStrategy;
+            this.in = in;
+        }
+
+        private Object readDocument(Class<?> clazz) throws ClassNotFoundException {
+            int version = in.readByte();
+            if (version != VERSION) {
+                throw new ExportMapperException("Unsupported binary format version " + version);
+            }
+
+            expectTag(in.readByte(), OBJECT);
+            readClassId();
+            return readObject(clazz);
+        }
+
+        private Object extract(String[] path) throws ClassNotFoundException {
+            int version = in.readByte();
+            if (version != VERSION) {
+                throw new ExportMapperException("Unsupported binary format version " + version);
+            }
+
+            expectTag(in.readByte(), OBJECT);
+            readClassId();
+            for (int depth = 0; ; ++depth) {
+                String name;
+                while ((name = readName()) != null && !name.equals(path[depth])) {
+                    skipValue(in.readByte());
+                }
+                if (name == null) {
+                    return null;
+                }
+
+                int tag = in.readByte();
+                if (depth == path.length - 1) {
+                    return switch (tag) {
+                        case COLLECTION, OBJECT, ARRAY, MAP -> throw new ExportMapperException("Property " +
+                                name + " is not a single value");
+                        case ENUM -> {
+                            readClassId();
+                            yield in.readString();
+                        }
+                        default -> readValue(tag);
+                    };
+                }
+
+                if (tag == NULL) {
+                    return null;
+                } else if (tag != OBJECT) {
+                    throw new ExportMapperException("Property " + name + " is not an object");
+                }
+                readClassId();
+            }
+        }
+
+        private int readClassId() {
+            int id = in.readVarInt();
+            if (id == classNames.size()) {
+                classNames.add(in.readString());
+                types.add(null);
+            } else if (id < 0 || id > classNames.size()) {
+                throw new ExportMapperException("Unknown type id " + id);
+            }
+            return id;
+        }
+
+        private Class<?> readClass() throws ClassNotFoundException {
+            int id = readClassId();
+            Class<?> type = types.get(id);
+            if (type == null) {
+                type = forName(classNames.get(id));
+                types.set(id, type);
+            }
+            return type;
+        }
+
+        /**
+         * Reads a property name, or returns null at the end of an object.
+         */
+        private String readName() {
+            int ref = in.readVarInt();
+            if (ref == 0) {
+                return null;
+            }
+
+            int id = ref - 1;
+            if (id == names.size()) {
+                names.add(in.readString());
+            } else if (id < 0 || id > names.size()) {
+                throw new ExportMapperException("Unknown property id " + id);
+            }
+            return names.get(id);
+        }
+
+        private void expectTag(int tag, int expected) {
+            if (tag != expected) {
+                throw new ExportMapperException("Incorrect binary format: unexpected tag " + tag);
+            }
+        }
+
+        private Object readObject(Class<?> clazz) throws ClassNotFoundException {
+            ClassPlan plan = ClassPlan.of(clazz);
+            Object obj = plan.newInstance(accessorStrategy);
+
+            String name;
+            while ((name = readName()) != null) {
+                FieldPlan field = plan.field(name);
+                if (field == null) {
+                    if (plan.unknownPropertiesPolicy == UnknownPropertiesPolicy.FAIL) {
+                        throw new ExportMapperException("Unknown property " + name +
+                                " of " + plan.type.getSimpleName());
+                    }
+                    skipValue(in.readByte());
+                    continue;
+                }
+
+                readField(obj, field);
+            }
+
+            return plan.complete(obj, accessorStrategy);
+        }
+
+        private void readField(Object obj, FieldPlan field) throws ClassNotFoundException {
+            FieldAccessor accessor = field.accessor(accessorStrategy);
+            int tag = in.readByte();
+            if (field.type.isPrimitive()) {
+                readUnboxedField(obj, accessor, field.type, tag);
+            } else if (tag == STRING && field.category == TypeCategory.DATE_TIME && field.formatter != null) {
+                accessor.set(obj, parseDateTime(field.type, field.formatter, in.readString()));
+            } else {
+                Object value = readValue(tag);
+                if (field.category == TypeCategory.OBJECT && value != null && !field.type.isInstance(value)) {
+                    throw new ExportMapperException("Type " + value.getClass().getName() +
+                            " can't be assigned to field " + field.name);
+                }
+                accessor.set(obj, value);
+            }
+        }
+
+        private void readUnboxedField(Object obj, FieldAccessor accessor, Class<?> type, int tag) {
+            if (type == int.class) {
+                expectTag(tag, INT);
+                accessor.setInt(obj, in.readSignedVarInt());
+            } else if (type == long.class) {
+                expectTag(tag, LONG);
+                accessor.setLong(obj, in.readSignedVarLong());
+            } else if (type == double.class) {
+                expectTag(tag, DOUBLE);
+                accessor.setDouble(obj, in.readDouble());
+            } else if (type == boolean.class) {
+                expectTag(tag, BOOLEAN);
+                accessor.setBoolean(obj, in.readByte() != 0);
+            } else if (type == float.class) {
+                expectTag(tag, FLOAT);
+                accessor.setFloat(obj, in.readFloat());
+            } else if (type == short.class) {
+                expectTag(tag, SHORT);
+                accessor.setShort(obj, (short) in.readSignedVarInt());
+            } else if (type == byte.class) {
+                expectTag(tag, BYTE);
+                accessor.setByte(obj, (byte) in.readByte());
+            } else {
+                expectTag(tag, CHAR);
+                accessor.setChar(obj, (char) in.readVarInt());
+            }
+        }
+
+        private Object readValue(int tag) throws ClassNotFoundException {
+            return switch (tag) {
+                case NULL -> null;
+                case BOOLEAN -> in.readByte() != 0;
+                case BYTE -> (byte) in.readByte();
+                case SHORT -> (short) in.readSignedVarInt();
+                case CHAR -> (char) in.readVarInt();
+                case INT -> in.readSignedVarInt();
+                case LONG -> in.readSignedVarLong();
+                case FLOAT -> in.readFloat();
+                case DOUBLE -> in.readDouble();
+                case STRING -> in.readString();
+                case ENUM -> parseEnum(readClass(), in.readString());
+                case DATE -> LocalDate.ofEpochDay(in.readSignedVarLong());
+                case TIME -> LocalTime.ofNanoOfDay(in.readVarLong());
+                case DATE_TIME -> LocalDateTime.of(LocalDate.ofEpochDay(in.readSignedVarLong()),
+                        LocalTime.ofNanoOfDay(in.readVarLong()));
+                case COLLECTION -> readCollection(readClass());
+                case OBJECT -> readObject(readClass());
+                case ARRAY -> readArray(readClass());
+                case MAP -> readMap(readClass());
+                default -> throw new ExportMapperException("Incorrect binary format: unexpected tag " + tag);
+            };
+        }
+
+        private Map<Object, Object> readMap(Class<?> mapType) throws ClassNotFoundException {
+            if (TypeCategory.of(mapType) != TypeCategory.MAP) {
+                throw new ExportMapperException("Type " + mapType.getSimpleName() + " is not exportable");
+            }
+
+            // The type is a Map, so any Object can be put there.
+            @SuppressWarnings("unchecked")
+            Map<Object, Object> map = (Map<Object, Object>) Instantiator.of(mapType).newInstance(accessorStrategy);
+
+            int size = in.readLength();
+            for (int i = 0; i < size; ++i) {
+                Object key = readValue(in.readByte());
+                map.put(key, readValue(in.readByte()));
+            }
+            return map;
+        }
+
+        private Object readArray(Class<?> arrayType) {
+            if (TypeCategory.of(arrayType) != TypeCategory.ARRAY) {
+                throw new ExportMapperException("Type " + arrayType.getSimpleName() + " is not exportable");
+            }
+
+            // Streamed input may end before a corrupt length, so arrays grow as elements are read.
+            int length = in.readLength();
+            int capacity = in.initialCapacity(length);
+            Class<?> component = arrayType.getComponentType();
+            if (component == int.class) {
+                int[] values = new int[capacity];
+                for (int i = 0; i < length; ++i) {
+                    if (i == values.length) {
+                        values = Arrays.copyOf(values, BinaryInput.grow(i, length));
+                    }
+                    values[i] = in.readSignedVarInt();
+                }
+                return values;
+            } else if (component == long.class) {
+                long[] values = new long[capacity];
+                for (int i = 0; i < length; ++i) {
+                    if (i == values.length) {
+                        values = Arrays.copyOf(values, BinaryInput.grow(i, length));
+                    }
+                    values[i] = in.readSignedVarLong();
+                }
+                return values;
+            } else if (component == double.class) {
+                double[] values = new double[capacity];
+                for (int i = 0; i < length; ++i) {
+                    if (i == values.length) {
+                        values = Arrays.copyOf(values, BinaryInput.grow(i, length));
+                    }
+                    values[i] = in.readDouble();
+                }
+                return values;
+            } else if (component == boolean.class) {
+                boolean[] values = new boolean[capacity];
+                for (int i = 0; i < length; ++i) {
+                    if (i == values.length) {
+                        values = Arrays.copyOf(values, BinaryInput.grow(i, length));
+                    }
+                    values[i] = in.readByte() != 0;
+                }
+                return values;
+            } else if (component == float.class) {
+                float[] values = new float[capacity];
+                for (int i = 0; i < length; ++i) {
+                    if (i == values.length) {
+                        values = Arrays.copyOf(values, BinaryInput.grow(i, length));
+                    }
+                    values[i] = in.readFloat();
+                }
+                return values;
+            } else if (component == short.class) {
+                short[] values = new short[capacity];
+                for (int i = 0; i < length; ++i) {
+                    if (i == values.length) {
+                        values = Arrays.copyOf(values, BinaryInput.grow(i, length));
+                    }
+                    values[i] = (short) in.readSignedVarInt();
+                }
+                return values;
+            } else if (component == byte.class) {
+                byte[] values = new byte[capacity];
+                for (int i = 0; i < length; ++i) {
+                    if (i == values.length) {
+                        values = Arrays.copyOf(values, BinaryInput.grow(i, length));
+                    }
+                    values[i] = (byte) in.readByte();
+                }
+                return values;
+            } else {
+                char[] values = new char[capacity];
+                for (int i = 0; i < length; ++i) {
+                    if (i == values.length) {
+                        values = Arrays.copyOf(values, BinaryInput.grow(i, length));
+                    }
+                    values[i] = (char) in.readVarInt();
+                }
+                return values;
+            }
+        }
+
+        private Collection<Object> readCollection(Class<?> collectionType) throws ClassNotFoundException {
+            if (TypeCategory.of(collectionType) != TypeCategory.COLLECTION) {
+                throw new ExportMapperException("Type " + collectionType.getSimpleName() + " is not exportable");
+            }
+
+            // The type is a List or a Set, so any Object can be put there.
+            @SuppressWarnings("unchecked")
+            Collection<Object> collection = (Collection<Object>) Instantiator.of(collectionType)
+                    .newInstance(accessorStrategy);
+
+            int size = in.readLength();
+            for (int i = 0; i < size; ++i) {
+                collection.add(readValue(in.readByte()));
+            }
+            return collection;
+        }
+
+        /**
+         * Skips a value of an unknown property. Class and property names defined inside it
+         * are still registered, since later values may refer to them.
+         */
+        private void skipValue(int tag) {
+            switch (tag) {
+                case NULL -> {
+                }
+                case BOOLEAN, BYTE -> in.readByte();
+                case SHORT, CHAR, INT -> in.readVarInt();
+                case LONG, DATE, TIME -> in.readVarLong();
+                case FLOAT -> in.readFloat();
+                case DOUBLE -> in.readDouble();
+                case STRING -> in.skipString();
+                case ENUM -> {
+                    readClassId();
+                    in.skipString();
+                }
+                case DATE_TIME -> {
+                    in.readVarLong();
+                    in.readVarLong();
+                }
+                case COLLECTION -> {
+                    readClassId();
+                    int size = in.readLength();
+                    for (int i = 0; i < size; ++i) {
+                        skipValue(in.readByte());
+                    }
+                }
+                case OBJECT -> {
+                    readClassId();
+                    while (readName() != null) {
+                        skipValue(in.readByte());
+                    }
+                }
+                case MAP -> {
+                    readClassId();
+                    int size = in.readLength();
+                    for (int i = 0; i < 2 * size; ++i) {
+                        skipValue(in.readByte());
+                    }
+                }
+                case ARRAY -> {
+                    // Descriptor of a primitive array is "[" and the component letter.
+                    String name = classNames.get(readClassId());
+                    int length = in.readLength();
+                    for (int i = 0; i < length; ++i) {
+                        switch (name.charAt(name.length() - 1)) {
+                            case 'Z', 'B' -> in.readByte();
+                            case 'F' -> in.readFloat();
+                            case 'D' -> in.readDouble();
+                            default -> in.readVarLong();
+                        }
+                    }
+                }
+                default -> throw new ExportMapperException("Incorrect binary format: unexpected tag " + tag);
+            }
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Object parseEnum(Class<?> type, String name) {
+            if (!type.isEnum()) {
+                throw new ExportMapperException("Type " + type.getSimpleName() + " is not enum");
+            }
+            return Enum.valueOf((Class<? extends Enum>) type, name);
+        }
+
+        private Object parseDateTime(Class<?> type, DateTimeFormatter formatter, String value) {
+            if (LocalDate.class.equals(type)) {
+                return LocalDate.parse(value, formatter);
+            } else if (LocalTime.class.equals(type)) {
+                return LocalTime.parse(value, formatter);
+            }
+            return LocalDateTime.parse(value, formatter);
+        }
+    }
+
+    class BinaryWriter {
+        private final AccessorStrategy accessorStrategy;
+        private final BinaryOutput out;
+        // Objects and collections on the current path, compared by identity.
+        private final Set<Object> colors = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final Map<Class<?>, Integer> classIds = new IdentityHashMap<>();
+        private final Map<String, Integer> nameIds = new HashMap<>();
+
+        private BinaryWriter(AccessorStrategy accessorStrategy, BinaryOutput out) {
+            this.accessorStrategy = accessorStrategy;
+            this.out = out;
+        }
+
+        private void writeDocument(Object obj) {
+            if (Objects.isNull(obj)) {
+                throw new ExportMapperException("Can't serialize a null object");
+            }
+
+            out.writeByte(VERSION);
+            writeObject(obj);
+        }
+
+        private void writeClass(Class<?> type) {
+            Integer id = classIds.get(type);
+            if (id != null) {
+                out.writeVarInt(id);
+                return;
+            }
+
+            id = classIds.size();
+            classIds.put(type, id);
+            out.writeVarInt(id);
+            out.writeString(type.getName());
+        }
+
+        private void writeName(String name) {
+            Integer id = nameIds.get(name);
+            if (id != null) {
+                out.writeVarInt(id + 1);
+                return;
+            }
+
+            id = nameIds.size();
+            nameIds.put(name, id);
+            out.writeVarInt(id + 1);
+            out.writeString(name);
+        }
+
+        private void checkForCycles(Object obj) {
+            if (!colors.add(obj)) {
+                throw new ExportMapperException("There is cycle for object of " + obj.getClass());
+            }
+        }
+
+        private void writeObject(Object obj) {
+            ClassPlan plan = ClassPlan.of(obj.getClass());
+            checkForCycles(obj);
+
+            out.writeByte(OBJECT);
+            writeClass(plan.type);
+            for (FieldPlan field : plan.fields) {
+                FieldAccessor accessor = field.accessor(accessorStrategy);
+                if (field.type.isPrimitive()) {
+                    writeName(field.name);
+                    writeUnboxedField(obj, accessor, field.type);
+                    continue;
+                }
+
+                Object value = accessor.get(obj);
+                if (plan.excludeNulls && value == null) {
+                    continue;
+                }
+
+                writeName(field.name);
+                if (value != null && field.category == TypeCategory.DATE_TIME && field.formatter != null) {
+                    out.writeByte(STRING);
+                    out.writeString(field.formatter.format((TemporalAccessor) value));
+                } else {
+                    writeValue(value);
+                }
+            }
+            out.writeVarInt(0);
+
+            colors.remove(obj);
+        }
+
+        private void writeUnboxedField(Object obj, FieldAccessor accessor, Class<?> type) {
+            if (type == int.class) {
+                out.writeByte(INT);
+                out.writeSignedVarInt(accessor.getInt(obj));
+            } else if (type == long.class) {
+                out.writeByte(LONG);
+                out.writeSignedVarLong(accessor.getLong(obj));
+            } else if (type == double.class) {
+                out.writeByte(DOUBLE);
+                out.writeDouble(accessor.getDouble(obj));
+            } else if (type == boolean.class) {
+                out.writeByte(BOOLEAN);
+                out.writeByte(accessor.getBoolean(obj) ? 1 : 0);
+            } else if (type == float.class) {
+                out.writeByte(FLOAT);
+                out.writeFloat(accessor.getFloat(obj));
+            } else if (type == short.class) {
+                out.writeByte(SHORT);
+                out.writeSignedVarInt(accessor.getShort(obj));
+            } else if (type == byte.class) {
+                out.writeByte(BYTE);
+                out.writeByte(accessor.getByte(obj));
+            } else {
+                out.writeByte(CHAR);
+                out.writeVarInt(accessor.getChar(obj));
+            }
+        }
+
+        private void writeValue(Object value) {
+            if (value == null) {
+                out.writeByte(NULL);
+                return;
+            }
+
+            if (value instanceof Enum<?> constant) {
+                out.writeByte(ENUM);
+                writeClass(constant.getDeclaringClass());
+                out.writeString(constant.name());
+                return;
+            }
+
+            if (value instanceof LazyList lazy) {
+                value = lazy.list();
+            }
+
+            Class<?> clazz = value.getClass();
+            switch (TypeCategory.of(clazz)) {
+                case PRIMITIVE -> writePrimitive(value);
+                case DATE_TIME -> writeDateTime(value);
+                case COLLECTION -> writeCollection((Collection<?>) value);
+                case MAP -> writeMap((Map<?, ?>) value);
+                case ARRAY -> writeArray(value);
+                default -> {
+                    if (isNotSerializableType(clazz)) {
+                        throw new ExportMapperException("Type " + clazz.getSimpleName() + " is not exportable");
+                    }
+                    writeObject(value);
+                }
+            }
+        }
+
+        private void writePrimitive(Object value) {
+            if (value instanceof String str) {
+                out.writeByte(STRING);
+                out.writeString(str);
+            } else if (value instanceof Integer i) {
+                out.writeByte(INT);
+                out.writeSignedVarInt(i);
+            } else if (value instanceof Long l) {
+                out.writeByte(LONG);
+                out.writeSignedVarLong(l);
+            } else if (value instanceof Double d) {
+                out.writeByte(DOUBLE);
+                out.writeDouble(d);
+            } else if (value instanceof Boolean b) {
+                out.writeByte(BOOLEAN);
+                out.writeByte(b ? 1 : 0);
+            } else if (value instanceof Float f) {
+                out.writeByte(FLOAT);
+                out.writeFloat(f);
+            } else if (value instanceof Short s) {
+                out.writeByte(SHORT);
+                out.writeSignedVarInt(s);
+            } else if (value instanceof Byte b) {
+                out.writeByte(BYTE);
+                out.writeByte(b);
+            } else {
+                out.writeByte(CHAR);
+                out.writeVarInt((Character) value);
+            }
+        }
+
+        private void writeDateTime(Object value) {
+            if (value instanceof LocalDate date) {
+                out.writeByte(DATE);
+                out.writeSignedVarLong(date.toEpochDay());
+            } else if (value instanceof LocalTime time) {
+                out.writeByte(TIME);
+                out.writeVarLong(time.toNanoOfDay());
+            } else {
+                LocalDateTime dateTime = (LocalDateTime) value;
+                out.writeByte(DATE_TIME);
+                out.writeSignedVarLong(dateTime.toLocalDate().toEpochDay());
+                out.writeVarLong(dateTime.toLocalTime().toNanoOfDay());
+            }
+        }
+
+        /**
+         * Writes a primitive array as one block: its length and the elements without tags.
+         */
+        private void writeArray(Object array) {
+            out.writeByte(ARRAY);
+            writeClass(array.getClass());
+            if (array instanceof int[] values) {
+                out.writeVarInt(values.length);
+                for (int value : values) {
+                    out.writeSignedVarInt(value);
+                }
+            } else if (array instanceof long[] values) {
+                out.writeVarInt(values.length);
+                for (long value : values) {
+                    out.writeSignedVarLong(value);
+                }
+            } else if (array instanceof double[] values) {
+                out.writeVarInt(values.length);
+                for (double value : values) {
+                    out.writeDouble(value);
+                }
+            } else if (array instanceof boolean[] values) {
+                out.writeVarInt(values.length);
+                for (boolean value : values) {
+                    out.writeByte(value ? 1 : 0);
+                }
+            } else if (array instanceof float[] values) {
+                out.writeVarInt(values.length);
+                for (float value : values) {
+                    out.writeFloat(value);
+                }
+            } else if (array instanceof short[] values) {
+                out.writeVarInt(values.length);
+                for (short value : values) {
+                    out.writeSignedVarInt(value);
+                }
+            } else if (array instanceof byte[] values) {
+                out.writeVarInt(values.length);
+                for (byte value : values) {
+                    out.writeByte(value);
+                }
+            } else {
+                char[] values = (char[]) array;
+                out.writeVarInt(values.length);
+                for (char value : values) {
+                    out.writeVarInt(value);
+                }
+            }
+        }
+
+        /**
+         * Writes a map as its size followed by keys and values in turn.
+         */
+        private void writeMap(Map<?, ?> map) {
+            checkForCycles(map);
+
+            out.writeByte(MAP);
+            writeClass(map.getClass());
+            out.writeVarInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(entry.getKey());
+                writeValue(entry.getValue());
+            }
+
+            colors.remove(map);
+        }
+
+        private void writeCollection(Collection<?> collection) {
+            checkForCycles(collection);
+
+            out.writeByte(COLLECTION);
+            writeClass(collection.getClass());
+            out.writeVarInt(collection.size());
+            for (Object element : collection) {
+                writeValue(element);
+            }
+
+            colors.remove(collection);
+        }
+    }
+
+    private Class<?> forName(String name) throws ClassNotFoundException {
+        Class<?> type = classes.get(name);
+        if (type == null) {
+            type = Class.forName(name);
+            classes.put(name, type);
+        }
+        return type;
+    }
+
+    private boolean isNotSerializableType(Class<?> clazz) {
+        return TypeCategory.of(clazz) == TypeCategory.OBJECT &&
+                !clazz.isAnnotationPresent(Exported.class);
+    }
+}
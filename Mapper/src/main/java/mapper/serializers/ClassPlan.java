@@ -0,0 +1,163 @@
+package mapper.serializers;
+
+import mapper.annotations.Exported;
+import mapper.annotations.Ignored;
+import mapper.annotations.PropertyName;
+import mapper.enums.AccessorStrategy;
+import mapper.enums.NullHandling;
+import mapper.enums.UnknownPropertiesPolicy;
+import mapper.exceptions.ExportMapperException;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.util.*;
+
+/**
+ * Serialization plan of an {@link Exported} class: validated once and cached per class,
+ * so the reflection walk over the class is not repeated for every object.
+ * <p>
+ * Fields of {@link Exported} superclasses are flattened into the plan, superclass fields first.
+ * <p>
+ * Records are read into an array of component values and created with the canonical
+ * constructor once all of them are known, see {@link #newInstance} and {@link #complete}.
+ */
+final class ClassPlan {
+    private static final ClassValue<ClassPlan> plans = new ClassValue<>() {
+        @Override
+        protected ClassPlan computeValue(Class<?> type) {
+            return new ClassPlan(type);
+        }
+    };
+
+    final Class<?> type;
+    final boolean excludeNulls;
+    final UnknownPropertiesPolicy unknownPropertiesPolicy;
+    final FieldPlan[] fields;
+    final boolean isRecord;
+    private final Map<String, FieldPlan> fieldsByName;
+    // Component values of a record missing in the input: zeros of primitives and nulls.
+    private final Object[] defaults;
+
+    private ClassPlan(Class<?> clazz) {
+        checkClassExportation(clazz);
+
+        type = clazz;
+        Exported exported = clazz.getAnnotation(Exported.class);
+        excludeNulls = exported.nullHandling().equals(NullHandling.EXCLUDE);
+        unknownPropertiesPolicy = exported.unknownPropertiesPolicy();
+        isRecord = clazz.isRecord();
+
+        List<String> components = new ArrayList<>();
+        if (isRecord) {
+            RecordComponent[] recordComponents = clazz.getRecordComponents();
+            defaults = new Object[recordComponents.length];
+            for (int i = 0; i < recordComponents.length; ++i) {
+                Class<?> type = recordComponents[i].getType();
+                components.add(recordComponents[i].getName());
+                defaults[i] = type.isPrimitive() ? Array.get(Array.newInstance(type, 1), 0) : null;
+            }
+        } else {
+            defaults = null;
+        }
+
+        List<Field> declaredFields = new ArrayList<>();
+        for (Class<?> c = clazz; c != Object.class && c != Record.class; c = c.getSuperclass()) {
+            declaredFields.addAll(0, List.of(c.getDeclaredFields()));
+        }
+
+        Set<String> fieldNames = new HashSet<>();
+        for (Field field : declaredFields) {
+            if (!field.isSynthetic() && !Modifier.isStatic(field.getModifiers())) {
+                fieldNames.add(field.getName());
+            }
+        }
+
+        List<FieldPlan> plans = new ArrayList<>();
+        fieldsByName = new HashMap<>();
+        for (Field field : declaredFields) {
+            if (!field.isSynthetic() && !Modifier.isStatic(field.getModifiers())) {
+                String name = getPropertyName(field, fieldNames);
+                if (field.trySetAccessible() && !field.isAnnotationPresent(Ignored.class)) {
+                    FieldPlan plan = new FieldPlan(field, name, components.indexOf(field.getName()));
+                    if (fieldsByName.put(name, plan) != null) {
+                        throw new ExportMapperException("The class " + clazz.getSimpleName() +
+                                " has several properties named " + name);
+                    }
+                    plans.add(plan);
+                }
+            }
+        }
+        fields = plans.toArray(new FieldPlan[0]);
+    }
+
+    /**
+     * Returns cached plan of {@code clazz}.
+     *
+     * @throws ExportMapperException if {@code clazz} can't be exported
+     */
+    static ClassPlan of(Class<?> clazz) {
+        return plans.get(clazz);
+    }
+
+    FieldPlan field(String name) {
+        return fieldsByName.get(name);
+    }
+
+    /**
+     * Creates the object fields are read into: a new instance of a class,
+     * or an array of component values of a record.
+     */
+    Object newInstance(AccessorStrategy strategy) {
+        return isRecord ? defaults.clone() : Instantiator.of(type).newInstance(strategy);
+    }
+
+    /**
+     * Returns the object read into {@code obj} created by {@link #newInstance}:
+     * {@code obj} itself, or a record created from the component values.
+     */
+    Object complete(Object obj, AccessorStrategy strategy) {
+        return isRecord ? Instantiator.of(type).newInstance((Object[]) obj, strategy) : obj;
+    }
+
+    private static void checkClassExportation(Class<?> clazz) {
+        if (!clazz.isAnnotationPresent(Exported.class)) {
+            throw new ExportMapperException("The class " + clazz.getSimpleName() +
+                    " is not annotated with Exported");
+        }
+
+        if (clazz.isRecord()) {
+            return;
+        }
+
+        for (Class<?> superclass = clazz.getSuperclass(); superclass != Object.class;
+             superclass = superclass.getSuperclass()) {
+            if (!superclass.isAnnotationPresent(Exported.class)) {
+                throw new ExportMapperException("The class " + clazz.getSimpleName() +
+                        " has superclass " + superclass.getSimpleName() + " not annotated with Exported");
+            }
+        }
+
+        try {
+            clazz.getConstructor();
+        } catch (NoSuchMethodException ex) {
+            throw new ExportMapperException("The class " + clazz.getSimpleName() +
+                    " does not have parameterless public constructor");
+        }
+    }
+
+    private static String getPropertyName(Field field, Set<String> fieldNames) {
+        String value = "";
+        if (field.isAnnotationPresent(PropertyName.class)) {
+            value = field.getAnnotation(PropertyName.class).value();
+        }
+
+        if (fieldNames.contains(value)) {
+            throw new ExportMapperException("The class has property name same as " +
+                    "field's name: " + value);
+        }
+
+        return value.isEmpty() ? field.getName() : value;
+    }
+}
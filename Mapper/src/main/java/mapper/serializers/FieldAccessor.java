@@ -0,0 +1,584 @@
+package mapper.serializers;
+
+import mapper.exceptions.ExportMapperException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads and writes one field of an object.
+ * Primitive fields have specialized methods, so their values are not boxed.
+ */
+abstract class FieldAccessor {
+    // Class file of HandleAccessor, or null if it can't be read.
+    private static final byte[] TEMPLATE = readTemplate();
+
+    abstract Object get(Object obj);
+
+    abstract void set(Object obj, Object value);
+
+    abstract boolean getBoolean(Object obj);
+
+    abstract void setBoolean(Object obj, boolean value);
+
+    abstract byte getByte(Object obj);
+
+    abstract void setByte(Object obj, byte value);
+
+    abstract short getShort(Object obj);
+
+    abstract void setShort(Object obj, short value);
+
+    abstract char getChar(Object obj);
+
+    abstract void setChar(Object obj, char value);
+
+    abstract int getInt(Object obj);
+
+    abstract void setInt(Object obj, int value);
+
+    abstract long getLong(Object obj);
+
+    abstract void setLong(Object obj, long value);
+
+    abstract float getFloat(Object obj);
+
+    abstract void setFloat(Object obj, float value);
+
+    abstract double getDouble(Object obj);
+
+    abstract void setDouble(Object obj, double value);
+
+    /**
+     * Creates accessor bound to method handles of {@code field} as constants of a hidden class,
+     * or reflective one if handles or the class can't be created. The field has to be accessible
+     * to this class, as planned fields are made.
+     */
+    static FieldAccessor generate(Field field) {
+        if (TEMPLATE == null) {
+            return new ReflectionAccessor(field);
+        }
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            Class<?> type = field.getType();
+            Class<?> exactType = type.isPrimitive() ? type : Object.class;
+
+            MethodHandle get = lookup.unreflectGetter(field);
+            MethodHandle getter = get.asType(MethodType.methodType(exactType, Object.class));
+            MethodHandle boxedGetter = get.asType(MethodType.methodType(Object.class, Object.class));
+
+            // Record fields can't be set, their values go to the constructor.
+            MethodHandle setter = null;
+            MethodHandle boxedSetter = null;
+            if (!field.getDeclaringClass().isRecord()) {
+                MethodHandle set = lookup.unreflectSetter(field);
+                setter = set.asType(MethodType.methodType(void.class, Object.class, exactType));
+                boxedSetter = set.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            }
+
+            List<Object> handles = Arrays.asList(field, getter, setter, boxedGetter, boxedSetter);
+            MethodHandles.Lookup hidden = lookup.defineHiddenClassWithClassData(TEMPLATE, handles, true,
+                    MethodHandles.Lookup.ClassOption.NESTMATE);
+            return (FieldAccessor) hidden.findConstructor(hidden.lookupClass(), MethodType.methodType(void.class))
+                    .invoke();
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            return new ReflectionAccessor(field);
+        }
+    }
+
+    private static byte[] readTemplate() {
+        try (InputStream in = FieldAccessor.class.getResourceAsStream("FieldAccessor$HandleAccessor.class")) {
+            return in == null ? null : in.readAllBytes();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    static FieldAccessor reflect(Field field) {
+        return new ReflectionAccessor(field);
+    }
+
+    /**
+     * Creates accessor of a record component: values are read from the record through
+     * {@code accessor} and written to slot {@code index} of the component values array
+     * the record is created with.
+     */
+    static FieldAccessor component(FieldAccessor accessor, int index) {
+        return new ComponentAccessor(accessor, index);
+    }
+
+    /**
+     * Returns exception to throw for failed access, errors are rethrown as they are.
+     */
+    private static ExportMapperException accessError(Field field, Throwable e) {
+        if (e instanceof Error error) {
+            throw error;
+        }
+        return new ExportMapperException("Can't get access to field " + field.getName() +
+                " of " + field.getDeclaringClass() + " | " + e.getMessage());
+    }
+
+    private static final class ReflectionAccessor extends FieldAccessor {
+        private final Field field;
+
+        private ReflectionAccessor(Field field) {
+            this.field = field;
+        }
+
+        @Override
+        Object get(Object obj) {
+            try {
+                return field.get(obj);
+            } catch (IllegalAccessException e) {
+                throw accessError(field, e);
+            }
+        }
+
+        @Override
+        void set(Object obj, Object value) {
+            try {
+                field.set(obj, value);
+            } catch (IllegalAccessException e) {
+                throw accessError(field, e);
+            }
+        }
+
+        @Override
+        boolean getBoolean(Object obj) {
+            try {
+                return field.getBoolean(obj);
+            } catch (IllegalAccessException e) {
+                throw accessError(field, e);
+            }
+        }
+
+        @Override
+        void setBoolean(Object obj, boolean value) {
+            try {
+                field.setBoolean(obj, value);
+            } catch (IllegalAccessException e) {
+                throw accessError(field, e);
+            }
+        }
+
+        @Override
+        byte getByte(Object obj) {
+            try {
+                return field.getByte(obj);
+            } catch (IllegalAccessException e) {
+                throw accessError(field, e);
+            }
+        }
+
+        @Override
+        void setByte(Object obj, byte value) {
+            try {
+                field.setByte(obj, value);
+            } catch (IllegalAccessException e) {
+                throw accessError(field, e);
+            }
+        }
+
+        @Override
+        short getShort(Object obj) {
+            try {
+                return field.getShort(obj);
+            } catch (IllegalAccessException e) {
+                throw accessError(field, e);
+            }
+        }
+
+        @Override
+        void setShort(Object obj, short value) {
+            try {
+                field.setShort(obj, value);
+            } catch (IllegalAccessException e) {
+                throw accessError(field, e);
+            }
+        }
+
+        @Override
+        char getChar(Object obj) {
+            try {
+                return field.getChar(obj);
+            } catch (IllegalAccessException e) {
+                throw accessError(field, e);
+            }
+        }
+
+        @Override
+        void setChar(Object obj, char value) {
+            try {
+                field.setChar(obj, value);
+            } catch (IllegalAccessException e) {
+                throw accessError(field, e);
+            }
+        }
+
+        @Override
+        int getInt(Object obj) {
+            try {
+                return field.getInt(obj);
+            } catch (IllegalAccessException e) {
+                throw accessError(field, e);
+            }
+        }
+
+        @Override
+        void setInt(Object obj, int value) {
+            try {
+                field.setInt(obj, value);
+            } catch (IllegalAccessException e) {
+                throw accessError(field, e);
+            }
+        }
+
+        @Override
+        long getLong(Object obj) {
+            try {
+                return field.getLong(obj);
+            } catch (IllegalAccessException e) {
+                throw accessError(field, e);
+            }
+        }
+
+        @Override
+        void setLong(Object obj, long value) {
+            try {
+                field.setLong(obj, value);
+            } catch (IllegalAccessException e) {
+                throw accessError(field, e);
+            }
+        }
+
+        @Override
+        float getFloat(Object obj) {
+            try {
+                return field.getFloat(obj);
+            } catch (IllegalAccessException e) {
+                throw accessError(field, e);
+            }
+        }
+
+        @Override
+        void setFloat(Object obj, float value) {
+            try {
+                field.setFloat(obj, value);
+            } catch (IllegalAccessException e) {
+                throw accessError(field, e);
+            }
+        }
+
+        @Override
+        double getDouble(Object obj) {
+            try {
+                return field.getDouble(obj);
+            } catch (IllegalAccessException e) {
+                throw accessError(field, e);
+            }
+        }
+
+        @Override
+        void setDouble(Object obj, double value) {
+            try {
+                field.setDouble(obj, value);
+            } catch (IllegalAccessException e) {
+                throw accessError(field, e);
+            }
+        }
+    }
+
+    /**
+     * Template of accessors over getter/setter method handles, never loaded itself. Every field gets
+     * a hidden copy of it, whose static final handles are taken from the class data the copy is
+     * defined with. Constant handles are inlined by the JIT as plain field accesses. Handles are
+     * adapted to the exact primitive type of the field, so {@code invokeExact} does no boxing.
+     */
+    private static final class HandleAccessor extends FieldAccessor {
+        private static final Field FIELD = classData(0, Field.class);
+        private static final MethodHandle GETTER = classData(1, MethodHandle.class);
+        private static final MethodHandle SETTER = classData(2, MethodHandle.class);
+        private static final MethodHandle BOXED_GETTER = classData(3, MethodHandle.class);
+        private static final MethodHandle BOXED_SETTER = classData(4, MethodHandle.class);
+
+        private static <T> T classData(int index, Class<T> type) {
+            try {
+                return MethodHandles.classDataAt(MethodHandles.lookup(), ConstantDescs.DEFAULT_NAME, type, index);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        Object get(Object obj) {
+            try {
+                return (Object) BOXED_GETTER.invokeExact(obj);
+            } catch (Throwable e) {
+                throw accessError(FIELD, e);
+            }
+        }
+
+        @Override
+        void set(Object obj, Object value) {
+            try {
+                BOXED_SETTER.invokeExact(obj, value);
+            } catch (Throwable e) {
+                throw accessError(FIELD, e);
+            }
+        }
+
+        @Override
+        boolean getBoolean(Object obj) {
+            try {
+                return (boolean) GETTER.invokeExact(obj);
+            } catch (Throwable e) {
+                throw accessError(FIELD, e);
+            }
+        }
+
+        @Override
+        void setBoolean(Object obj, boolean value) {
+            try {
+                SETTER.invokeExact(obj, value);
+            } catch (Throwable e) {
+                throw accessError(FIELD, e);
+            }
+        }
+
+        @Override
+        byte getByte(Object obj) {
+            try {
+                return (byte) GETTER.invokeExact(obj);
+            } catch (Throwable e) {
+                throw accessError(FIELD, e);
+            }
+        }
+
+        @Override
+        void setByte(Object obj, byte value) {
+            try {
+                SETTER.invokeExact(obj, value);
+            } catch (Throwable e) {
+                throw accessError(FIELD, e);
+            }
+        }
+
+        @Override
+        short getShort(Object obj) {
+            try {
+                return (short) GETTER.invokeExact(obj);
+            } catch (Throwable e) {
+                throw accessError(FIELD, e);
+            }
+        }
+
+        @Override
+        void setShort(Object obj, short value) {
+            try {
+                SETTER.invokeExact(obj, value);
+            } catch (Throwable e) {
+                throw accessError(FIELD, e);
+            }
+        }
+
+        @Override
+        char getChar(Object obj) {
+            try {
+                return (char) GETTER.invokeExact(obj);
+            } catch (Throwable e) {
+                throw accessError(FIELD, e);
+            }
+        }
+
+        @Override
+        void setChar(Object obj, char value) {
+            try {
+                SETTER.invokeExact(obj, value);
+            } catch (Throwable e) {
+                throw accessError(FIELD, e);
+            }
+        }
+
+        @Override
+        int getInt(Object obj) {
+            try {
+                return (int) GETTER.invokeExact(obj);
+            } catch (Throwable e) {
+                throw accessError(FIELD, e);
+            }
+        }
+
+        @Override
+        void setInt(Object obj, int value) {
+            try {
+                SETTER.invokeExact(obj, value);
+            } catch (Throwable e) {
+                throw accessError(FIELD, e);
+            }
+        }
+
+        @Override
+        long getLong(Object obj) {
+            try {
+                return (long) GETTER.invokeExact(obj);
+            } catch (Throwable e) {
+                throw accessError(FIELD, e);
+            }
+        }
+
+        @Override
+        void setLong(Object obj, long value) {
+            try {
+                SETTER.invokeExact(obj, value);
+            } catch (Throwable e) {
+                throw accessError(FIELD, e);
+            }
+        }
+
+        @Override
+        float getFloat(Object obj) {
+            try {
+                return (float) GETTER.invokeExact(obj);
+            } catch (Throwable e) {
+                throw accessError(FIELD, e);
+            }
+        }
+
+        @Override
+        void setFloat(Object obj, float value) {
+            try {
+                SETTER.invokeExact(obj, value);
+            } catch (Throwable e) {
+                throw accessError(FIELD, e);
+            }
+        }
+
+        @Override
+        double getDouble(Object obj) {
+            try {
+                return (double) GETTER.invokeExact(obj);
+            } catch (Throwable e) {
+                throw accessError(FIELD, e);
+            }
+        }
+
+        @Override
+        void setDouble(Object obj, double value) {
+            try {
+                SETTER.invokeExact(obj, value);
+            } catch (Throwable e) {
+                throw accessError(FIELD, e);
+            }
+        }
+    }
+
+    private static final class ComponentAccessor extends FieldAccessor {
+        private final FieldAccessor accessor;
+        private final int index;
+
+        private ComponentAccessor(FieldAccessor accessor, int index) {
+            this.accessor = accessor;
+            this.index = index;
+        }
+
+        @Override
+        Object get(Object obj) {
+            return accessor.get(obj);
+        }
+
+        @Override
+        void set(Object obj, Object value) {
+            ((Object[]) obj)[index] = value;
+        }
+
+        @Override
+        boolean getBoolean(Object obj) {
+            return accessor.getBoolean(obj);
+        }
+
+        @Override
+        void setBoolean(Object obj, boolean value) {
+            ((Object[]) obj)[index] = value;
+        }
+
+        @Override
+        byte getByte(Object obj) {
+            return accessor.getByte(obj);
+        }
+
+        @Override
+        void setByte(Object obj, byte value) {
+            ((Object[]) obj)[index] = value;
+        }
+
+        @Override
+        short getShort(Object obj) {
+            return accessor.getShort(obj);
+        }
+
+        @Override
+        void setShort(Object obj, short value) {
+            ((Object[]) obj)[index] = value;
+        }
+
+        @Override
+        char getChar(Object obj) {
+            return accessor.getChar(obj);
+        }
+
+        @Override
+        void setChar(Object obj, char value) {
+            ((Object[]) obj)[index] = value;
+        }
+
+        @Override
+        int getInt(Object obj) {
+            return accessor.getInt(obj);
+        }
+
+        @Override
+        void setInt(Object obj, int value) {
+            ((Object[]) obj)[index] = value;
+        }
+
+        @Override
+        long getLong(Object obj) {
+            return accessor.getLong(obj);
+        }
+
+        @Override
+        void setLong(Object obj, long value) {
+            ((Object[]) obj)[index] = value;
+        }
+
+        @Override
+        float getFloat(Object obj) {
+            return accessor.getFloat(obj);
+        }
+
+        @Override
+        void setFloat(Object obj, float value) {
+            ((Object[]) obj)[index] = value;
+        }
+
+        @Override
+        double getDouble(Object obj) {
+            return accessor.getDouble(obj);
+        }
+
+        @Override
+        void setDouble(Object obj, double value) {
+            ((Object[]) obj)[index] = value;
+        }
+    }
+}
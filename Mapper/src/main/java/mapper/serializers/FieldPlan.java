@@ -0,0 +1,126 @@
+package mapper.serializers;
+
+import mapper.annotations.DateFormat;
+import mapper.annotations.Exported;
+import mapper.enums.AccessorStrategy;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Precomputed metadata of one serializable field.
+ */
+final class FieldPlan {
+    final Field field;
+    final String name;
+    final Class<?> type;
+    final String typeName;
+    final String genericTypeName;
+    final TypeCategory category;
+    final DateTimeFormatter formatter;
+    // Declared key and value types of a map field when both are wrappers, Strings or enums,
+    // so that entries can be written without type tags; null otherwise.
+    final Class<?> keyType;
+    final Class<?> valueType;
+    // Declared element type of a collection field, null if it is not known.
+    final Type elementType;
+    private final FieldAccessor reflectiveAccessor;
+    // Index of the record component stored in the field, -1 for fields of classes.
+    private final int component;
+    // Hidden class defined on the first METHOD_HANDLES access, not for serializers using reflection.
+    private volatile FieldAccessor generatedAccessor;
+
+    /**
+     * @param component index of the record component stored in {@code field}, -1 for fields of classes
+     */
+    FieldPlan(Field field, String name, int component) {
+        this.field = field;
+        this.name = name;
+        type = field.getType();
+        typeName = type.getName();
+        genericTypeName = field.getGenericType().getTypeName();
+        category = TypeCategory.of(type);
+
+        DateFormat format = field.getAnnotation(DateFormat.class);
+        formatter = format == null ? null : DateTimeFormatter.ofPattern(format.value());
+
+        Class<?> key = null;
+        Class<?> value = null;
+        if (category == TypeCategory.MAP && field.getGenericType() instanceof ParameterizedType generic
+                && generic.getActualTypeArguments().length == 2) {
+            key = plainType(generic.getActualTypeArguments()[0]);
+            value = plainType(generic.getActualTypeArguments()[1]);
+        }
+        keyType = value == null ? null : key;
+        valueType = key == null ? null : value;
+        elementType = category == TypeCategory.COLLECTION ? elementType(field.getGenericType()) : null;
+
+        this.component = component;
+        FieldAccessor reflective = FieldAccessor.reflect(field);
+        reflectiveAccessor = component < 0 ? reflective : FieldAccessor.component(reflective, component);
+    }
+
+    /**
+     * Whether entries of this map field are written as {@code "key":"value"} pairs without type tags.
+     */
+    boolean isPlainMap() {
+        return keyType != null;
+    }
+
+    /**
+     * Returns the element type of a parameterized collection type, or null.
+     */
+    static Type elementType(Type collectionType) {
+        if (collectionType instanceof ParameterizedType generic && generic.getActualTypeArguments().length == 1) {
+            return generic.getActualTypeArguments()[0];
+        }
+        return null;
+    }
+
+    /**
+     * Returns {@code type} if it is a final class every element of a collection declared with it
+     * must have exactly, so that elements can be written without type tags; null otherwise.
+     * Primitive arrays are left out, since Base64 of a byte[] may read as a null element.
+     */
+    static Class<?> exactType(Type type) {
+        if (!(type instanceof Class<?> clazz) || !Modifier.isFinal(clazz.getModifiers())) {
+            return null;
+        }
+
+        return switch (TypeCategory.of(clazz)) {
+            case PRIMITIVE, ENUM, DATE_TIME -> clazz;
+            case OBJECT -> clazz.isAnnotationPresent(Exported.class) ? clazz : null;
+            default -> null;
+        };
+    }
+
+    private static Class<?> plainType(Type type) {
+        if (type instanceof Class<?> clazz && (clazz.isEnum()
+                || TypeCategory.of(clazz) == TypeCategory.PRIMITIVE && !clazz.isPrimitive())) {
+            return clazz;
+        }
+        return null;
+    }
+
+    FieldAccessor accessor(AccessorStrategy strategy) {
+        return strategy == AccessorStrategy.METHOD_HANDLES ? generatedAccessor() : reflectiveAccessor;
+    }
+
+    private FieldAccessor generatedAccessor() {
+        FieldAccessor result = generatedAccessor;
+        if (result != null) {
+            return result;
+        }
+
+        synchronized (this) {
+            if (generatedAccessor == null) {
+                FieldAccessor generated = FieldAccessor.generate(field);
+                generatedAccessor = component < 0 ? generated : FieldAccessor.component(generated, component);
+            }
+            return generatedAccessor;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package mapper.serializers;
+
+import mapper.enums.AccessorStrategy;
+import mapper.exceptions.ExportMapperException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.RecordComponent;
+
+/**
+ * Cached parameterless constructor of a class, or canonical constructor of a record,
+ * as method handle and as reflective constructor.
+ */
+final class Instantiator {
+    private static final ClassValue<Instantiator> instantiators = new ClassValue<>() {
+        @Override
+        protected Instantiator computeValue(Class<?> type) {
+            return new Instantiator(type);
+        }
+    };
+
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+
+    private final Class<?> type;
+    private final Constructor<?> constructor;
+    private final MethodHandle handle;
+
+    private Instantiator(Class<?> clazz) {
+        type = clazz;
+        Class<?>[] parameters = new Class<?>[0];
+        if (clazz.isRecord()) {
+            RecordComponent[] components = clazz.getRecordComponents();
+            parameters = new Class<?>[components.length];
+            for (int i = 0; i < components.length; ++i) {
+                parameters[i] = components[i].getType();
+            }
+        }
+
+        Constructor<?> ctor;
+        try {
+            ctor = clazz.getDeclaredConstructor(parameters);
+            ctor.trySetAccessible();
+        } catch (NoSuchMethodException e) {
+            ctor = null;
+        }
+        constructor = ctor;
+
+        MethodHandle mh = null;
+        if (ctor != null) {
+            try {
+                // Arguments of a record constructor are passed as one array.
+                mh = MethodHandles.lookup().unreflectConstructor(ctor)
+                        .asSpreader(Object[].class, parameters.length)
+                        .asType(MethodType.methodType(Object.class, Object[].class));
+            } catch (IllegalAccessException | RuntimeException e) {
+                // Reflective constructor is used instead.
+            }
+        }
+        handle = mh;
+    }
+
+    static Instantiator of(Class<?> clazz) {
+        return instantiators.get(clazz);
+    }
+
+    Object newInstance(AccessorStrategy strategy) {
+        return newInstance(NO_ARGUMENTS, strategy);
+    }
+
+    /**
+     * Calls the constructor with {@code arguments}, which are component values for a record.
+     */
+    Object newInstance(Object[] arguments, AccessorStrategy strategy) {
+        if (constructor == null) {
+            throw new ExportMapperException(type.getName() + ".<init>()");
+        }
+
+        if (handle != null && strategy == AccessorStrategy.METHOD_HANDLES) {
+            try {
+                return (Object) handle.invokeExact(arguments);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new ExportMapperException("Can't create instance of " + type.getName() +
+                        " | " + e.getMessage());
+            }
+        }
+
+        try {
+            return constructor.newInstance(arguments);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new ExportMapperException("Can't create instance of " + type.getName() +
+                    " | " + e.getCause().getMessage());
+        } catch (InstantiationException | IllegalAccessException | IllegalArgumentException e) {
+            throw new ExportMapperException(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package mapper.serializers;
+
+import mapper.exceptions.ExportMapperException;
+
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.Callable;
+
+/**
+ * List field value parsed on first access from the part of the input it was read from.
+ * <p>
+ * Until then the list retains the input. Parse errors are thrown as {@link ExportMapperException}
+ * on the first access. The parsed list is then used for all operations, and writers write it
+ * instead of this wrapper.
+ */
+final class LazyList extends AbstractList<Object> {
+    private Callable<List<Object>> parser;
+    private volatile List<Object> list;
+
+    LazyList(Callable<List<Object>> parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * Returns the parsed list, parsing it on the first call.
+     */
+    List<Object> list() {
+        List<Object> result = list;
+        if (result != null) {
+            return result;
+        }
+
+        synchronized (this) {
+            if (list == null) {
+                try {
+                    list = parser.call();
+                } catch (UncheckedIOException | ExportMapperException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new ExportMapperException(e.getMessage());
+                }
+                parser = null;
+            }
+            return list;
+        }
+    }
+
+    /**
+     * Whether the list has been parsed.
+     */
+    boolean isParsed() {
+        return list != null;
+    }
+
+    @Override
+    public Object get(int index) {
+        return list().get(index);
+    }
+
+    @Override
+    public int size() {
+        return list().size();
+    }
+
+    @Override
+    public Object set(int index, Object element) {
+        return list().set(index, element);
+    }
+
+    @Override
+    public void add(int index, Object element) {
+        list().add(index, element);
+    }
+
+    @Override
+    public Object remove(int index) {
+        return list().remove(index);
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        return list().iterator();
+    }
+
+    @Override
+    public ListIterator<Object> listIterator(int index) {
+        return list().listIterator(index);
+    }
+}
@@ -0,0 +1,202 @@
+package mapper.serializers;
+
+import mapper.exceptions.ExportMapperException;
+import mapper.interfaces.Cleaner;
+import mapper.utils.InputBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the value at a dotted property path in a text document without binding it to classes.
+ * Properties off the path are skipped by matching brackets, type tags are only compared
+ * with names, so classes of the document don't have to be loadable.
+ * <p>
+ * An {@code "@id"} reference on the path, written with {@link mapper.enums.ReferenceHandling#SHARE},
+ * is followed by counting objects from the start of the document up to the referenced one.
+ */
+final class PathExtractor {
+    private PathExtractor() {
+    }
+
+    /**
+     * Splits {@code path} into property names.
+     *
+     * @throws IllegalArgumentException if a property name is empty
+     */
+    static String[] split(String path) {
+        String[] names = path.split("\\.", -1);
+        for (String name : names) {
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("Incorrect path " + path);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Returns the text of the quoted value at {@code path}, or null if the value is null
+     * or some property of the path is absent.
+     *
+     * The input has to be held in memory if the path goes through shared references.
+     *
+     * @throws ExportMapperException if the path goes through a value that is not an object,
+     *                               or ends at an object, a reference to one or a collection
+     */
+    static String extract(InputBuffer in, String[] path, Cleaner cleaner) {
+        String[] typeNames = in.peek() == '~' ? readTypeTable(in) : null;
+
+        in.expect('{');
+        int depth = 0;
+        while (true) {
+            if (in.peek() == '}') {
+                return null;
+            }
+
+            String type = null;
+            do {
+                in.expect('\"');
+                if (in.readUntil('#').equals(path[depth])) {
+                    // Collection and map fields have two types, the real one goes first.
+                    type = in.readUntil('\"');
+                    int end = type.indexOf('#');
+                    type = end < 0 ? type : type.substring(0, end);
+                    in.expect(':');
+                    break;
+                }
+
+                in.skipUntil('\"');
+                in.expect(':');
+                in.skipValue();
+            } while (endOfElement(in));
+            if (type == null) {
+                return null;
+            }
+
+            type = typeName(type, typeNames);
+            int c = in.peek();
+            if (depth == path.length - 1) {
+                if (c != '\"') {
+                    throw new ExportMapperException("Property " + path[depth] + " is not a single value");
+                }
+                in.next();
+                String value = in.readUntil('\"');
+                if (isReference(value, type)) {
+                    throw new ExportMapperException("Property " + path[depth] + " is not a single value");
+                }
+                return value(value, type, cleaner);
+            }
+
+            if (c == '\"') {
+                in.next();
+                String value = in.readUntil('\"');
+                if (value.equals("null")) {
+                    return null;
+                }
+                if (!isReference(value, type)) {
+                    throw new ExportMapperException("Property " + path[depth] + " is not an object");
+                }
+                moveToObject(in, value);
+            } else if (c == '{') {
+                in.next();
+            } else {
+                throw new ExportMapperException("Property " + path[depth] + " is not an object");
+            }
+            ++depth;
+        }
+    }
+
+    /**
+     * Whether {@code value} of a property of {@code type} is an {@code "@id"} reference.
+     * Only Strings and characters may start with {@code @} otherwise.
+     */
+    private static boolean isReference(String value, String type) {
+        return value.length() > 1 && value.charAt(0) == '@' && !type.equals("java.lang.String")
+                && !type.equals("java.lang.Character") && !type.equals("char");
+    }
+
+    /**
+     * Moves the cursor past the opening bracket of the object {@code reference} points to.
+     * Objects are numbered in the order their brackets open, the only other braces
+     * are values of plain map fields, whose keys have two type tags.
+     */
+    private static void moveToObject(InputBuffer in, String reference) {
+        int id;
+        try {
+            id = Integer.parseInt(reference, 1, reference.length(), 10);
+        } catch (NumberFormatException e) {
+            throw new ExportMapperException("Unknown object reference " + reference);
+        }
+
+        int end = in.position();
+        in.moveTo(0);
+        int count = 0;
+        int tags = 0;
+        char previous = 0;
+        while (in.position() < end) {
+            char c = in.next();
+            if (c == '\"') {
+                // Strings can't contain quotes and brackets.
+                tags = 0;
+                while ((c = in.next()) != '\"') {
+                    if (c == '#') {
+                        ++tags;
+                    }
+                }
+            } else if (c == '{' && (previous != ':' || tags != 2) && count++ == id) {
+                return;
+            }
+            previous = c;
+        }
+        throw new ExportMapperException("Unknown object reference " + reference);
+    }
+
+    private static String value(String value, String type, Cleaner cleaner) {
+        // Null arrays are marked by the type, since Base64 of byte[] may read "null".
+        if (type.equals("null") || value.equals("null") && !type.startsWith("[")) {
+            return null;
+        }
+        return type.equals("java.lang.String") ? cleaner.recoverString(value) : value;
+    }
+
+    private static String typeName(String tag, String[] typeNames) {
+        if (typeNames != null && !tag.isEmpty() && Character.isDigit(tag.charAt(0))) {
+            int id = Integer.parseInt(tag);
+            if (id >= typeNames.length) {
+                throw new ExportMapperException("Unknown type id " + tag);
+            }
+            return typeNames[id];
+        }
+        return tag;
+    }
+
+    private static String[] readTypeTable(InputBuffer in) {
+        in.expect('~');
+        in.expect('[');
+        List<String> names = new ArrayList<>();
+        if (in.peek() == ']') {
+            in.next();
+            return new String[0];
+        }
+
+        char c;
+        do {
+            in.expect('\"');
+            names.add(in.readUntil('\"'));
+        } while ((c = in.next()) == ',');
+        if (c != ']') {
+            throw new ExportMapperException("Incorrect string format: unexpected " + c);
+        }
+        return names.toArray(new String[0]);
+    }
+
+    private static boolean endOfElement(InputBuffer in) {
+        char c = in.next();
+        if (c == ',') {
+            return true;
+        } else if (c == '}') {
+            return false;
+        }
+        throw new ExportMapperException("Incorrect string format: unexpected " + c);
+    }
+}
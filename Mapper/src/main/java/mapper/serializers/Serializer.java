@@ -1,45 +1,276 @@
 package mapper.serializers;
 
-import mapper.annotations.DateFormat;
 import mapper.annotations.Exported;
-import mapper.annotations.Ignored;
-import mapper.annotations.PropertyName;
-import mapper.enums.NullHandling;
+import mapper.enums.AccessorStrategy;
+import mapper.enums.FileMode;
+import mapper.enums.ReferenceHandling;
+import mapper.enums.TypeTagFormat;
+import mapper.enums.UnknownPropertiesPolicy;
 import mapper.exceptions.ExportMapperException;
 import mapper.interfaces.Cleaner;
 import mapper.interfaces.Mapper;
-import mapper.utils.StringCleaner;
+import mapper.utils.ChannelOutputStream;
+import mapper.utils.InputBuffer;
+import mapper.utils.IsoDateTime;
+import mapper.utils.MappedFileReader;
+import mapper.utils.OutputBuffer;
+import mapper.utils.PrimitiveArrays;
+import mapper.utils.SinglePassCleaner;
 import mapper.utils.TypeConverter;
 
 import java.io.*;
 import java.lang.reflect.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.TemporalAccessor;
 import java.util.*;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Thread-safe {@link Mapper}: one instance can be shared between threads.
+ * State of a single read or write lives in a {@link JsonReader} or {@link JsonWriter}
+ * created for that call; settings are captured when the call starts.
+ */
 public class Serializer implements Mapper {
+    // Placeholder of a record in shared references while its components are read.
+    private static final Object UNDER_CONSTRUCTION = new Object();
+
     private final TypeConverter converter;
-    private final JsonWriter writer;
-    private final JsonReader reader;
     private final Cleaner stringCleaner;
 
-    private List<Object> colors;
+    private volatile AccessorStrategy accessorStrategy = AccessorStrategy.METHOD_HANDLES;
+    private volatile FileMode fileMode = FileMode.STREAM;
+    private volatile ReferenceHandling referenceHandling = ReferenceHandling.FAIL;
+    private volatile TypeTagFormat typeTagFormat = TypeTagFormat.INLINE;
+    private volatile int parallelThreshold = 0;
+    private volatile ForkJoinPool pool = ForkJoinPool.commonPool();
+    private volatile boolean lazyCollections = false;
+    private final Map<String, Class<?>> classes = new ConcurrentHashMap<>();
 
     public Serializer() {
         converter = new TypeConverter();
-        writer = new JsonWriter();
-        reader = new JsonReader();
-        stringCleaner = new StringCleaner();
+        stringCleaner = new SinglePassCleaner();
+    }
+
+    public AccessorStrategy getAccessorStrategy() {
+        return accessorStrategy;
+    }
+
+    /**
+     * Selects how field values are read and written: through reflection or through
+     * method handles generated per field (with reflection fallback for fields they
+     * can't be created for).
+     */
+    public void setAccessorStrategy(AccessorStrategy accessorStrategy) {
+        this.accessorStrategy = Objects.requireNonNull(accessorStrategy);
+    }
+
+    public FileMode getFileMode() {
+        return fileMode;
+    }
+
+    /**
+     * Selects how files are accessed by {@link #read(Class, File)} and {@link #write(Object, File)}:
+     * through file streams or through a {@link FileChannel}, with the file being memory-mapped
+     * and decoded lazily on read and collected in a direct buffer on write. Mapping pays off
+     * for large files, which are never copied to the heap as a whole; files of up to 8 KB
+     * are read instead of mapped.
+     */
+    public void setFileMode(FileMode fileMode) {
+        this.fileMode = Objects.requireNonNull(fileMode);
+    }
+
+    public ReferenceHandling getReferenceHandling() {
+        return referenceHandling;
+    }
+
+    /**
+     * Selects what happens when an object is reached more than once.
+     * {@link ReferenceHandling#FAIL} rejects cycles and writes shared objects once per reference.
+     * {@link ReferenceHandling#SHARE} writes every object once and later occurrences,
+     * including cycles, as {@code "@id"} references, where id is the index of the object
+     * in the order objects are written. Both sides have to use the same setting.
+     * Collections are not shared and still can't form cycles.
+     */
+    public void setReferenceHandling(ReferenceHandling referenceHandling) {
+        this.referenceHandling = Objects.requireNonNull(referenceHandling);
+    }
+
+    public TypeTagFormat getTypeTagFormat() {
+        return typeTagFormat;
+    }
+
+    /**
+     * Selects how type names are written. {@link TypeTagFormat#INLINE} writes class names
+     * in every key. {@link TypeTagFormat#DICTIONARY} writes each name once in a
+     * {@code ~["name",...]} table before the object and refers to it by index,
+     * which requires the object to be built in memory before it is written.
+     * Reading accepts both formats regardless of this setting.
+     */
+    public void setTypeTagFormat(TypeTagFormat typeTagFormat) {
+        this.typeTagFormat = Objects.requireNonNull(typeTagFormat);
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * Enables parallel writing and parsing of collections with at least {@code parallelThreshold}
+     * elements. Written collections are split into chunks written concurrently on
+     * {@link #getForkJoinPool()} and joined in order, so the output is the same as when written
+     * sequentially. Parsing, for input held in memory ({@link #readFromString(Class, String)}),
+     * first finds element boundaries in one pass over the collection, then parses chunks of
+     * elements concurrently and adds them to the collection in their original order.
+     * Collections inside such chunks are handled sequentially.
+     * <p>
+     * Not used with {@link ReferenceHandling#SHARE}, whose ids depend on the order of objects,
+     * for writing with {@link TypeTagFormat#DICTIONARY}, whose ids depend on the order of
+     * writing, and with a pool of parallelism 1. 0 (default) disables parallel processing.
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        if (parallelThreshold < 0) {
+            throw new IllegalArgumentException("Negative threshold " + parallelThreshold);
+        }
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public ForkJoinPool getForkJoinPool() {
+        return pool;
+    }
+
+    /**
+     * Selects the pool parallel work runs on, {@link ForkJoinPool#commonPool()} by default.
+     */
+    public void setForkJoinPool(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool);
+    }
+
+    public boolean isLazyCollections() {
+        return lazyCollections;
+    }
+
+    /**
+     * Enables lazy parsing of list fields for input held in memory
+     * ({@link #readFromString(Class, String)}). A field declared as {@link List} or {@link Collection}
+     * holding a list gets a list that keeps the range of the input it was written in and parses
+     * it on the first access, so collections that are never touched cost one skip over their
+     * text. Parse errors of such lists are thrown on the first access. Lists keep the input
+     * in memory until they are parsed.
+     * <p>
+     * Nested objects are always parsed eagerly, since their classes can't be substituted.
+     * Not used with {@link ReferenceHandling#SHARE}, whose ids depend on the order of objects.
+     */
+    public void setLazyCollections(boolean lazyCollections) {
+        this.lazyCollections = lazyCollections;
     }
 
     @Override
     public <T> T readFromString(Class<T> clazz, String input) {
+        return deserialize(clazz, new InputBuffer(input));
+    }
+
+    /**
+     * Reads only {@code properties} of the top-level object, named as in the document. Values of
+     * other properties are skipped by matching brackets, without parsing them, creating objects
+     * or loading classes, and their fields keep the values set by the constructor.
+     * The unknown properties policy is not applied to skipped properties.
+     *
+     * @throws ExportMapperException if {@code clazz} has no property from {@code properties},
+     *                               or with {@link ReferenceHandling#SHARE}, whose ids can point
+     *                               into skipped values
+     */
+    public <T> T readFromString(Class<T> clazz, String input, Set<String> properties) {
+        if (referenceHandling == ReferenceHandling.SHARE) {
+            throw new ExportMapperException("Properties can't be selected with shared references");
+        }
+        ClassPlan plan = ClassPlan.of(clazz);
+        for (String property : properties) {
+            if (plan.field(property) == null) {
+                throw new ExportMapperException("Unknown property " + property + " of " + clazz.getSimpleName());
+            }
+        }
+
+        return deserialize(clazz, new InputBuffer(input), Set.copyOf(properties));
+    }
+
+    /**
+     * Returns the value at {@code path}, property names separated by dots ({@code "order.customer.id"}),
+     * as it is written in the document, with Strings recovered. Works without the classes of the
+     * document: properties off the path are skipped by matching brackets and type tags are not
+     * resolved. Reading stops at the value, so the rest of the document is not checked.
+     * Documents written with {@link ReferenceHandling#SHARE} are read regardless of this serializer's
+     * setting: a reference on the path is followed by scanning the document again from the start
+     * up to the referenced object.
+     *
+     * @return text of the value, or null if it is null or some property of the path is absent
+     * @throws ExportMapperException if the path goes through a value that is not an object,
+     *                               or ends at an object, a reference to one or a collection
+     */
+    public String extract(String input, String path) {
+        return extract(new InputBuffer(input), path);
+    }
+
+    /**
+     * Same as {@link #extract(String, String)} for a document in UTF-8.
+     */
+    public String extract(byte[] input, String path) {
+        // Decoded once, without an intermediate String.
+        CharBuffer chars = StandardCharsets.UTF_8.decode(ByteBuffer.wrap(input));
+        return extract(new InputBuffer(chars.array(), chars.limit()), path);
+    }
+
+    /**
+     * Same as {@link #extract(String, String)} with the value converted to {@code type}:
+     * a primitive, a wrapper, String, an enum or a date/time class in ISO format.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T extract(String input, String path, Class<T> type) {
+        TypeCategory category = TypeCategory.of(type);
+        if (category != TypeCategory.PRIMITIVE && category != TypeCategory.ENUM
+                && category != TypeCategory.DATE_TIME) {
+            throw new IllegalArgumentException("Values can't be converted to " + type.getName());
+        }
+
+        String value = extract(input, path);
+        if (value == null) {
+            return null;
+        }
+        try {
+            if (category == TypeCategory.PRIMITIVE) {
+                return (T) converter.convertToPrimitiveOrWrapper(value, type);
+            } else if (category == TypeCategory.ENUM) {
+                return (T) Enum.valueOf(type.asSubclass(Enum.class), value);
+            } else if (type == LocalDate.class) {
+                return (T) IsoDateTime.parseDate(value);
+            } else if (type == LocalTime.class) {
+                return (T) IsoDateTime.parseTime(value);
+            }
+            return (T) IsoDateTime.parseDateTime(value);
+        } catch (RuntimeException e) {
+            throw new ExportMapperException("Can't convert " + value + " to " + type.getName());
+        }
+    }
+
+    private String extract(InputBuffer in, String path) {
+        String[] names = PathExtractor.split(path);
         try {
-            return clazz.cast(reader.parseObject(clazz, input));
+            return PathExtractor.extract(in, names, stringCleaner);
+        } catch (UncheckedIOException | ExportMapperException e) {
+            throw e;
         } catch (Exception e) {
             throw new ExportMapperException(e.getMessage());
         }
@@ -47,215 +278,539 @@ public class Serializer implements Mapper {
 
     @Override
     public <T> T read(Class<T> clazz, InputStream inputStream) throws IOException {
-        BufferedInputStream bis = new BufferedInputStream(inputStream);
-        ByteArrayOutputStream buf = new ByteArrayOutputStream();
-        for (int result = bis.read(); result != -1; result = bis.read()) {
-            buf.write((byte) result);
+        try (Reader source = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+            return deserialize(clazz, new InputBuffer(source));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
-
-        return clazz.cast(reader.parseObject(clazz, buf.toString(StandardCharsets.UTF_8)));
     }
 
     @Override
     public <T> T read(Class<T> clazz, File file) throws IOException {
-        String strObject;
-        try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
-            strObject = reader.readLine();
+        if (fileMode == FileMode.MAPPED) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+                 Reader source = new MappedFileReader(channel)) {
+                return deserialize(clazz, new InputBuffer(source));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
         }
 
-        return clazz.cast(reader.parseObject(clazz, strObject));
+        return read(clazz, new FileInputStream(file));
     }
 
-    @Override
-    public String writeToString(Object object) {
+    private <T> T deserialize(Class<T> clazz, InputBuffer in) {
+        return deserialize(clazz, in, (Set<String>) null);
+    }
+
+    /**
+     * Reads a whole document, with only {@code properties} of the top-level object if they are not null.
+     */
+    private <T> T deserialize(Class<T> clazz, InputBuffer in, Set<String> properties) {
+        T obj = deserialize(clazz, in, properties,
+                new JsonReader(accessorStrategy, referenceHandling, parallelThreshold, pool, lazyCollections));
+        in.skipWhitespace();
+        if (in.peek() != -1) {
+            throw new ExportMapperException("Unexpected data after the end of object");
+        }
+        return obj;
+    }
+
+    private <T> T deserialize(Class<T> clazz, InputBuffer in, Set<String> properties, JsonReader reader) {
         try {
-            colors = new ArrayList<>();
-            return writer.serializeObject(object);
+            return clazz.cast(reader.parseDocument(clazz, in, properties));
+        } catch (UncheckedIOException | ExportMapperException e) {
+            throw e;
         } catch (Exception e) {
             throw new ExportMapperException(e.getMessage());
         }
     }
 
+    /**
+     * Reads objects written by {@link #writeAll(Iterable, OutputStream)}: documents separated
+     * by whitespace. Settings are captured when this method is called.
+     */
+    @Override
+    public <T> Stream<T> readAll(Class<T> clazz, InputStream inputStream) {
+        AccessorStrategy strategy = accessorStrategy;
+        ReferenceHandling handling = referenceHandling;
+        Reader source = new InputStreamReader(inputStream, StandardCharsets.UTF_8);
+        InputBuffer in = new InputBuffer(source);
+
+        Iterator<T> records = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                in.skipWhitespace();
+                return in.peek() != -1;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                // Streams are parsed sequentially, so parallel settings don't matter.
+                return deserialize(clazz, in, null, new JsonReader(strategy, handling, 0, pool, false));
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(records,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    try {
+                        source.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    @Override
+    public String writeToString(Object object) {
+        OutputBuffer out = new OutputBuffer();
+        serialize(object, out);
+        return out.toString();
+    }
+
     @Override
     public void write(Object object, OutputStream outputStream) throws IOException {
-        try (Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)) {
-            writer.write(writeToString(object));
+        try (outputStream) {
+            OutputBuffer out = new OutputBuffer(outputStream);
+            serialize(object, out);
+            out.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Writes every object of {@code objects} as a document followed by a line break,
+     * through one buffer flushed to the stream as it fills up.
+     */
+    @Override
+    public void writeAll(Iterable<?> objects, OutputStream outputStream) throws IOException {
+        try (outputStream) {
+            OutputBuffer out = new OutputBuffer(outputStream);
+            for (Object object : objects) {
+                serialize(object, out);
+                out.append('\n');
+            }
+            out.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
     }
 
     @Override
     public void write(Object object, File file) throws IOException {
-        try (FileWriter writer = new FileWriter(file, StandardCharsets.UTF_8)) {
-            writer.write(writeToString(object));
+        if (fileMode == FileMode.MAPPED) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                write(object, new ChannelOutputStream(channel));
+            }
+            return;
+        }
+
+        write(object, new FileOutputStream(file));
+    }
+
+    private void serialize(Object object, OutputBuffer out) {
+        try {
+            new JsonWriter(accessorStrategy, referenceHandling, typeTagFormat, parallelThreshold, pool)
+                    .serializeDocument(object, out);
+        } catch (UncheckedIOException | ExportMapperException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ExportMapperException(e.getMessage());
         }
     }
 
     class JsonReader {
-        private Object parseObject(Class<?> clazz, String str) {
-            checkClassExportation(clazz);
-            StringBuilder sb = new StringBuilder(str);
-            if (isNotSerializableType(clazz)) {
-                throw new ExportMapperException("Type " + clazz.getSimpleName() + " is not exportable");
+        private final AccessorStrategy accessorStrategy;
+        private final List<Object> references;
+        private String[] typeNames;
+        private Class<?>[] types;
+
+        // Minimal size of a collection parsed in parallel, 0 if parallel parsing is off.
+        private final int parallelThreshold;
+        private final ForkJoinPool pool;
+        private final boolean lazyCollections;
+
+        private JsonReader(AccessorStrategy accessorStrategy, ReferenceHandling referenceHandling,
+                           int parallelThreshold, ForkJoinPool pool, boolean lazyCollections) {
+            this.accessorStrategy = accessorStrategy;
+            references = referenceHandling == ReferenceHandling.SHARE ? new ArrayList<>() : null;
+            this.parallelThreshold = references == null && pool.getParallelism() > 1 ? parallelThreshold : 0;
+            this.pool = pool;
+            this.lazyCollections = references == null && lazyCollections;
+        }
+
+        /**
+         * Creates a reader for a part of the same document, sharing its type table.
+         */
+        private JsonReader child(int parallelThreshold) {
+            JsonReader reader = new JsonReader(accessorStrategy, ReferenceHandling.FAIL, parallelThreshold,
+                    pool, lazyCollections);
+            if (typeNames != null) {
+                reader.typeNames = typeNames;
+                reader.types = types.clone();
             }
+            return reader;
+        }
 
-            Object obj = createObject(clazz);
+        private Object createObject(Class<?> clazz) {
+            return Instantiator.of(clazz).newInstance(accessorStrategy);
+        }
 
-            Map<String, Field> fields = getFieldMap(clazz);
+        private Object parseDocument(Class<?> clazz, InputBuffer in, Set<String> properties)
+                throws ClassNotFoundException {
+            if (in.peek() == '~') {
+                parseTypeTable(in);
+            }
+            return parseObject(clazz, in, properties);
+        }
 
-            try {
-                int i = 1;
-                int prev;
-                if (sb.length() == 2) {
-                    return obj;
+        private void parseTypeTable(InputBuffer in) {
+            in.expect('~');
+            in.expect('[');
+            List<String> names = new ArrayList<>();
+            if (in.peek() != ']') {
+                do {
+                    in.expect('\"');
+                    names.add(in.readUntil('\"'));
+                } while (endOfElement(in, ']'));
+            } else {
+                in.next();
+            }
+
+            typeNames = names.toArray(new String[0]);
+            types = new Class<?>[typeNames.length];
+        }
+
+        /**
+         * Resolves a type tag: a class name or, with a type table, an index in it.
+         */
+        private Class<?> resolve(String tag) throws ClassNotFoundException {
+            if (typeNames != null && !tag.isEmpty() && Character.isDigit(tag.charAt(0))) {
+                int id = Integer.parseInt(tag);
+                if (id >= typeNames.length) {
+                    throw new ExportMapperException("Unknown type id " + tag);
                 }
 
-                while (i < sb.length()) {
-                    prev = i;
-                    int keyStart = str.indexOf("\"", i) + 1;
-                    int keyEnd = str.indexOf("#", keyStart);
-                    String key = str.substring(keyStart, keyEnd);
-
-                    Field field = fields.get(key);
-
-                    if (field.trySetAccessible()) {
-                        Class<?> fieldType = field.getType();
-
-                        if (converter.isPrimitiveOrWrapper(fieldType) || fieldType.isEnum()) {
-                            int typeEnd = str.indexOf("\"", keyEnd);
-
-                            i = parsePrimitiveField(str, obj, field, fieldType, typeEnd);
-                        } else if (converter.isDateTime(fieldType)) {
-                            i = parseDateTimeField(str, obj, keyEnd, field, fieldType);
-                        } else if (converter.isListOrSet(fieldType)) {
-                            int typeEnd = str.indexOf("\"", keyEnd);
-                            String[] typeStr = str.substring(keyEnd + 1, typeEnd).split("#");
-
-                            if (typeStr[0].equals("null")) {
-                                field.set(obj, null);
-                                i = str.indexOf('\"', typeEnd + 3) + 1;
-                                continue;
-                            }
-
-                            int opened = 1;
-                            int pos = typeEnd + 3;
-                            pos = getPos(sb, opened, pos, '[', ']');
-                            String value = str.substring(typeEnd + 2, pos);
-                            Class<?> type = Class.forName(typeStr[0]);
-                            field.set(obj, parseCollection(type,
-                                    value));
-                            i = pos + 1;
-                        } else {
-                            int typeEnd = str.indexOf("\"", keyEnd);
-                            String typeStr = str.substring(keyEnd + 1, typeEnd);
+                Class<?> type = types[id];
+                if (type == null) {
+                    type = forName(typeNames[id]);
+                    types[id] = type;
+                }
+                return type;
+            }
+
+            return forName(tag);
+        }
 
-                            if (str.charAt(typeEnd + 2) == '\"') {
-                                field.set(obj, null);
-                                i = str.indexOf('\"', typeEnd + 3) + 1;
-                                continue;
-                            }
+        private Object parseObjectValue(String type, InputBuffer in) throws ClassNotFoundException {
+            if (in.peek() == '\"') {
+                return parseReference(in);
+            }
+            return parseObject(resolve(type), in);
+        }
+
+        private Object parseObjectValue(Class<?> type, InputBuffer in) throws ClassNotFoundException {
+            if (in.peek() == '\"') {
+                return parseReference(in);
+            }
+            return parseObject(type, in);
+        }
+
+        /**
+         * Parses {@code "null"} or a reference {@code "@id"} to an object read before.
+         */
+        private Object parseReference(InputBuffer in) {
+            in.expect('\"');
+            return reference(in.readUntil('\"'));
+        }
+
+        private Object reference(String value) {
+            if (value.equals("null")) {
+                return null;
+            }
 
-                            int opened = 1;
-                            int pos = typeEnd + 3;
-                            pos = getPos(sb, opened, pos, '{', '}');
-                            String value = str.substring(typeEnd + 2, pos);
+            if (references == null || value.isEmpty() || value.charAt(0) != '@') {
+                throw new ExportMapperException("Incorrect string format: unexpected reference " + value);
+            }
 
-                            Class<?> type = Class.forName(typeStr);
+            int id = Integer.parseInt(value, 1, value.length(), 10);
+            if (id < 0 || id >= references.size()) {
+                throw new ExportMapperException("Unknown object reference " + value);
+            }
 
-                            field.set(obj, parseObject(type,
-                                    value));
-                            i = pos + 1;
+            Object obj = references.get(id);
+            if (obj == UNDER_CONSTRUCTION) {
+                throw new ExportMapperException("Cyclic reference " + value + " to a record");
+            }
+            return obj;
+        }
+
+        private Object parseObject(Class<?> clazz, InputBuffer in) throws ClassNotFoundException {
+            return parseObject(clazz, in, null);
+        }
+
+        /**
+         * Parses an object, skipping properties not in {@code properties} if they are not null.
+         */
+        private Object parseObject(Class<?> clazz, InputBuffer in, Set<String> properties)
+                throws ClassNotFoundException {
+            ClassPlan plan = ClassPlan.of(clazz);
+            Object obj = plan.newInstance(accessorStrategy);
+            int id = -1;
+            if (references != null) {
+                id = references.size();
+                // A record exists only after all its components are read.
+                references.add(plan.isRecord ? UNDER_CONSTRUCTION : obj);
+            }
+
+            in.expect('{');
+            if (in.peek() == '}') {
+                in.next();
+                return complete(plan, obj, id);
+            }
+
+            do {
+                in.expect('\"');
+                String key = in.readUntil('#');
+                if (properties != null && !properties.contains(key)) {
+                    in.skipUntil('\"');
+                    in.expect(':');
+                    in.skipValue();
+                    continue;
+                }
+
+                FieldPlan fieldPlan = plan.field(key);
+                if (fieldPlan == null) {
+                    skipUnknownProperty(in, plan, key);
+                    continue;
+                }
+                FieldAccessor field = fieldPlan.accessor(accessorStrategy);
+
+                switch (fieldPlan.category) {
+                    case PRIMITIVE, ENUM -> {
+                        in.skipUntil('\"');
+                        in.expect(':');
+                        parsePrimitiveField(in, obj, fieldPlan);
+                    }
+                    case DATE_TIME -> {
+                        in.skipUntil('\"');
+                        in.expect(':');
+                        parseDateTimeField(in, obj, fieldPlan);
+                    }
+                    case COLLECTION -> {
+                        String realType = in.readUntil('#');
+                        in.skipUntil('\"');
+                        in.expect(':');
+
+                        if (realType.equals("null")) {
+                            parseNull(in);
+                            field.set(obj, null);
+                        } else if (lazyCollections && in.isInMemory()
+                                && fieldPlan.type.isAssignableFrom(LazyList.class)) {
+                            field.set(obj, parseLazyCollection(resolve(realType), in, fieldPlan.elementType));
+                        } else {
+                            field.set(obj, parseCollection(resolve(realType), in, fieldPlan.elementType));
                         }
                     }
-                    if (prev >= i) {
-                        throw new ExportMapperException("Incorrect string format");
+                    case MAP -> {
+                        String realType = in.readUntil('#');
+                        in.skipUntil('\"');
+                        in.expect(':');
+
+                        if (realType.equals("null")) {
+                            parseNull(in);
+                            field.set(obj, null);
+                        } else {
+                            field.set(obj, parseMap(resolve(realType), in, fieldPlan));
+                        }
+                    }
+                    case ARRAY -> {
+                        // Base64 of byte[] may read "null", so null arrays are marked by the type.
+                        String type = in.readUntil('\"');
+                        in.expect(':');
+
+                        if (type.equals("null")) {
+                            parseNull(in);
+                            field.set(obj, null);
+                        } else {
+                            in.expect('\"');
+                            field.set(obj, PrimitiveArrays.read(fieldPlan.type, in, '\"'));
+                        }
+                    }
+                    default -> {
+                        String type = in.readUntil('\"');
+                        in.expect(':');
+
+                        field.set(obj, checkType(fieldPlan, parseObjectValue(type, in)));
                     }
                 }
-            } catch (ClassNotFoundException | IllegalAccessException e) {
-                throw new ExportMapperException(e.getMessage());
+            } while (endOfElement(in, '}'));
+
+            return complete(plan, obj, id);
+        }
+
+        private Object complete(ClassPlan plan, Object obj, int id) {
+            if (!plan.isRecord) {
+                return obj;
             }
 
-            return obj;
+            Object record = plan.complete(obj, accessorStrategy);
+            if (id >= 0) {
+                references.set(id, record);
+            }
+            return record;
         }
 
-        private int getPos(StringBuilder sb, int opened, int pos, char c, char c2) {
-            while (opened != 0) {
-                if (sb.charAt(pos) == c) {
-                    ++opened;
-                } else if (sb.charAt(pos) == c2) {
-                    --opened;
-                }
-                ++pos;
+        /**
+         * Checks that an object read by the type tag fits the declared type of the field.
+         */
+        private Object checkType(FieldPlan fieldPlan, Object value) {
+            if (value != null && !fieldPlan.type.isInstance(value)) {
+                throw new ExportMapperException("Type " + value.getClass().getName() +
+                        " can't be assigned to field " + fieldPlan.name);
             }
-            return pos;
+            return value;
         }
 
-        private int parseDateTimeField(String str, Object obj, int keyEnd, Field field, Class<?> fieldType) throws IllegalAccessException {
-            int i;
-            int valueEnd;
-            int typeEnd = str.indexOf("\"", keyEnd);
+        private boolean endOfElement(InputBuffer in, char close) {
+            char c = in.next();
+            if (c == ',') {
+                return true;
+            } else if (c == close) {
+                return false;
+            }
+            throw new ExportMapperException("Incorrect string format: unexpected " + c);
+        }
 
-            valueEnd = str.indexOf("\"", typeEnd + 3);
-            String value = str.substring(typeEnd + 3, valueEnd);
+        private void parseNull(InputBuffer in) {
+            in.expect('\"');
+            if (!in.readUntil('\"').equals("null")) {
+                throw new ExportMapperException("Incorrect string format: expected null");
+            }
+        }
+
+        private void skipUnknownProperty(InputBuffer in, ClassPlan plan, String key) {
+            if (plan.unknownPropertiesPolicy == UnknownPropertiesPolicy.FAIL) {
+                throw new ExportMapperException("Unknown property " + key +
+                        " of " + plan.type.getSimpleName());
+            }
+
+            in.skipUntil('\"');
+            in.expect(':');
+            in.skipValue();
+        }
+
+        private void parseDateTimeField(InputBuffer in, Object obj, FieldPlan fieldPlan) {
+            FieldAccessor field = fieldPlan.accessor(accessorStrategy);
+            in.expect('\"');
+            String value = in.readUntil('\"');
 
             if (!value.equals("null")) {
-                Object dt;
-                dt = parseDateTime(field, fieldType, value);
-                field.set(obj, dt);
+                field.set(obj, parseDateTime(fieldPlan, value));
             } else {
                 field.set(obj, null);
             }
-
-            i = valueEnd + 2;
-            return i;
         }
 
-        private int parsePrimitiveField(String str, Object obj, Field field, Class<?> fieldType, int typeEnd) throws IllegalAccessException {
-            int i;
-            int valueEnd;
-            valueEnd = str.indexOf("\"", typeEnd + 3);
-            String value = str.substring(typeEnd + 3, valueEnd);
+        private void parsePrimitiveField(InputBuffer in, Object obj, FieldPlan fieldPlan) {
+            FieldAccessor field = fieldPlan.accessor(accessorStrategy);
+            Class<?> fieldType = fieldPlan.type;
+            in.expect('\"');
+            if (fieldType.isPrimitive() && fieldType != char.class && fieldType != boolean.class) {
+                setPrimitive(in, obj, field, fieldType);
+                return;
+            }
+            if (isNumber(fieldType) && in.peek() != 'n') {
+                field.set(obj, parseNumber(in, fieldType));
+                return;
+            }
+
+            String value = in.readUntil('\"');
             if (value.equals("null")) {
                 field.set(obj, null);
             } else {
-                if (fieldType.isEnum()) {
-                    try {
-                        Method valueOfMethod = fieldType.getDeclaredMethod("valueOf", String.class);
-                        field.set(obj, valueOfMethod.invoke(null, value));
-                    } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-                        throw new ExportMapperException("Can't parse enum" + fieldType);
-                    }
+                if (fieldPlan.category == TypeCategory.ENUM) {
+                    field.set(obj, parseEnum(fieldType, value));
                 } else {
-                    if (field.getType().equals(String.class)) {
-                        value = stringCleaner.recoverString(value);
+                    if (fieldType == boolean.class) {
+                        field.setBoolean(obj, Boolean.parseBoolean(value));
+                    } else if (fieldType == char.class) {
+                        field.setChar(obj, value.charAt(0));
+                    } else {
+                        if (fieldType.equals(String.class)) {
+                            value = stringCleaner.recoverString(value);
+                        }
+                        field.set(obj, converter.convertToPrimitiveOrWrapper(value, fieldType));
                     }
-                    field.set(obj, converter.convertToPrimitiveOrWrapper(value, fieldType));
                 }
             }
-            i = valueEnd + 2;
-            return i;
         }
 
-        private Map<String, Field> getFieldMap(Class<?> clazz) {
-            Map<String, Field> fields = new HashMap<>();
-            for (Field field : clazz.getDeclaredFields()) {
-                if (!field.isSynthetic() && !Modifier.isStatic(field.getModifiers())
-                        && !field.isAnnotationPresent(Ignored.class)) {
-                    if (field.isAnnotationPresent(PropertyName.class)) {
-                        fields.put(field.getAnnotation(PropertyName.class).value(), field);
-                    } else {
-                        fields.put(field.getName(), field);
-                    }
-                }
+        /**
+         * Reads a numeric primitive straight from the input, without a String and boxing.
+         */
+        private void setPrimitive(InputBuffer in, Object obj, FieldAccessor field, Class<?> type) {
+            if (type == int.class) {
+                field.setInt(obj, in.readInt('\"'));
+            } else if (type == long.class) {
+                field.setLong(obj, in.readLong('\"', Long.MIN_VALUE, Long.MAX_VALUE));
+            } else if (type == double.class) {
+                field.setDouble(obj, in.readDouble('\"'));
+            } else if (type == float.class) {
+                field.setFloat(obj, in.readFloat('\"'));
+            } else if (type == short.class) {
+                field.setShort(obj, (short) in.readLong('\"', Short.MIN_VALUE, Short.MAX_VALUE));
+            } else {
+                field.setByte(obj, (byte) in.readLong('\"', Byte.MIN_VALUE, Byte.MAX_VALUE));
             }
-            return fields;
         }
 
-        private Object parseDateTime(Field field, Class<?> fieldType, String value) {
-            Object dt;
-            if (field.isAnnotationPresent(DateFormat.class)) {
-                DateTimeFormatter timeFormatter =
-                        DateTimeFormatter.ofPattern(field.getAnnotation(DateFormat.class).value());
+        private boolean isNumber(Class<?> type) {
+            return type == Integer.class || type == Long.class || type == Double.class
+                    || type == Float.class || type == Short.class || type == Byte.class;
+        }
+
+        /**
+         * Reads a number of wrapper {@code type} straight from the input, without a String.
+         */
+        private Object parseNumber(InputBuffer in, Class<?> type) {
+            if (type == Integer.class) {
+                return in.readInt('\"');
+            } else if (type == Long.class) {
+                return in.readLong('\"', Long.MIN_VALUE, Long.MAX_VALUE);
+            } else if (type == Double.class) {
+                return in.readDouble('\"');
+            } else if (type == Float.class) {
+                return in.readFloat('\"');
+            } else if (type == Short.class) {
+                return (short) in.readLong('\"', Short.MIN_VALUE, Short.MAX_VALUE);
+            }
+            return (byte) in.readLong('\"', Byte.MIN_VALUE, Byte.MAX_VALUE);
+        }
 
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Object parseEnum(Class<?> type, String value) {
+            if (!type.isEnum()) {
+                throw new ExportMapperException("Can't parse enum " + type.getName());
+            }
+            try {
+                return Enum.valueOf((Class<? extends Enum>) type, value);
+            } catch (IllegalArgumentException e) {
+                throw new ExportMapperException("Can't parse enum " + type.getName());
+            }
+        }
+
+        private Object parseDateTime(FieldPlan fieldPlan, String value) {
+            Object dt;
+            DateTimeFormatter timeFormatter = fieldPlan.formatter;
+            if (timeFormatter != null) {
+                Class<?> fieldType = fieldPlan.type;
                 if (LocalDate.class.equals(fieldType)) {
                     dt = LocalDate.parse(value, timeFormatter);
                 } else if (LocalTime.class.equals(fieldType)) {
@@ -264,7 +819,7 @@ public class Serializer implements Mapper {
                     dt = LocalDateTime.parse(value, timeFormatter);
                 }
             } else {
-                dt = parseNotFormattedDateTime(fieldType, value);
+                dt = parseNotFormattedDateTime(fieldPlan.type, value);
             }
 
             return dt;
@@ -273,17 +828,21 @@ public class Serializer implements Mapper {
         private Object parseNotFormattedDateTime(Class<?> type, String value) {
             Object dt;
             if (LocalDate.class.equals(type)) {
-                dt = LocalDate.parse(value);
+                dt = IsoDateTime.parseDate(value);
             } else if (LocalTime.class.equals(type)) {
-                dt = LocalTime.parse(value);
+                dt = IsoDateTime.parseTime(value);
             } else {
-                dt = LocalDateTime.parse(value);
+                dt = IsoDateTime.parseDateTime(value);
             }
 
             return dt;
         }
 
-        private Collection<Object> parseCollection(Class<?> collectionType, String str) throws ClassNotFoundException {
+        /**
+         * Parses a collection whose elements are declared as {@code elementType}, which may be null.
+         */
+        private Collection<Object> parseCollection(Class<?> collectionType, InputBuffer in, Type elementType)
+                throws ClassNotFoundException {
 
             if (isNotSerializableType(collectionType)) {
                 throw new ExportMapperException("Type " + collectionType.getSimpleName() + " is not exportable");
@@ -293,172 +852,433 @@ public class Serializer implements Mapper {
             // It is always collection, and we can put there any Object.
             @SuppressWarnings("unchecked")
             Collection<Object> collection = (Collection<Object>) createObject(collectionType);
-            StringBuilder sb = new StringBuilder(str);
 
-            int i = 1;
-            int prev;
-
-            if (sb.length() == 2) {
+            in.expect('[');
+            if (in.peek() == ']') {
+                in.next();
                 return collection;
             }
-            while (i < sb.length()) {
-                prev = i;
-                int innerTypeBegin = sb.indexOf("\"", i) + 1;
-                int innerTypeEnd = sb.indexOf("\"", innerTypeBegin);
 
-                String innerType = sb.substring(innerTypeBegin, innerTypeEnd);
-//                System.out.println(innerType);
-                if (innerType.equals("null")) {
-                    collection.add(null);
-                    i = sb.indexOf("\"", innerTypeEnd + 3) + 2;
-                    continue;
+            Class<?> exactType = FieldPlan.exactType(elementType);
+            if (parallelThreshold > 0 && in.isInMemory()) {
+                int[] bounds = in.elementBounds();
+                if (bounds.length - 1 >= parallelThreshold) {
+                    parseInParallel(collection, in, bounds, exactType, elementType);
+                    return collection;
+                }
+            }
+
+            // Elements of a final declared type are written without tags, but documents
+            // written before that still have them, so the first element tells which it is.
+            if (exactType != null) {
+                if (in.peek() == '{') {
+                    return parseUntaggedElements(collection, exactType, in);
                 }
 
-                Class<?> innerClass = Class.forName(innerType);
+                in.expect('\"');
+                String token = in.readUntil('\"');
+                if (in.peek() != ':') {
+                    collection.add(untaggedElement(exactType, token));
+                    if (!endOfElement(in, ']')) {
+                        return collection;
+                    }
+                    return parseUntaggedElements(collection, exactType, in);
+                }
+
+                in.next();
+                collection.add(parseElementValue(token, in, elementType));
+                if (!endOfElement(in, ']')) {
+                    return collection;
+                }
+            }
+
+            do {
+                collection.add(parseElement(in, elementType));
+            } while (endOfElement(in, ']'));
+
+            return collection;
+        }
+
+        /**
+         * Returns a {@link LazyList} over a list in memory, or parses other collections.
+         */
+        private Collection<Object> parseLazyCollection(Class<?> collectionType, InputBuffer in, Type elementType)
+                throws ClassNotFoundException {
+            if (!List.class.isAssignableFrom(collectionType) || isNotSerializableType(collectionType)) {
+                return parseCollection(collectionType, in, elementType);
+            }
+
+            InputBuffer value = in.sliceValue();
+            JsonReader reader = child(parallelThreshold);
+            return new LazyList(() -> {
+                @SuppressWarnings("unchecked")
+                List<Object> list = (List<Object>) reader.parseCollection(collectionType, value, elementType);
+                if (value.peek() != -1) {
+                    throw new ExportMapperException("Incorrect string format: unexpected " + (char) value.peek());
+                }
+                return list;
+            });
+        }
+
+        /**
+         * Parses chunks of the elements found by {@link InputBuffer#elementBounds()} on the pool,
+         * each with its own reader, and adds them to {@code collection} in order.
+         */
+        private void parseInParallel(Collection<Object> collection, InputBuffer in, int[] bounds,
+                                     Class<?> exactType, Type elementType) {
+            int size = bounds.length - 1;
+            Object[] elements = new Object[size];
+            int chunks = Math.min(size, pool.getParallelism() * 4);
+            List<Callable<Void>> tasks = new ArrayList<>(chunks);
+            for (int i = 0; i < chunks; ++i) {
+                int start = (int) ((long) size * i / chunks);
+                int end = (int) ((long) size * (i + 1) / chunks);
+                tasks.add(() -> {
+                    JsonReader reader = child(0);
+
+                    for (int j = start; j < end; ++j) {
+                        InputBuffer element = in.slice(bounds[j], bounds[j + 1] - 1);
+                        elements[j] = reader.parseAnyElement(element, exactType, elementType);
+                        if (element.peek() != -1) {
+                            throw new ExportMapperException("Incorrect string format: unexpected " +
+                                    (char) element.peek());
+                        }
+                    }
+                    return null;
+                });
+            }
 
+            invokeAll(pool, tasks);
+            Collections.addAll(collection, elements);
+            in.moveTo(bounds[size]);
+        }
 
-                if (converter.isPrimitiveOrWrapper(innerClass) || innerClass.isEnum()) {
-                    i = parsePrimitiveElement(collection, sb, innerTypeEnd, innerType, innerClass);
-                } else if (converter.isDateTime(innerClass)) {
-                    int valueEnd = sb.indexOf("\"", innerTypeEnd + 3);
-                    String value = sb.substring(innerTypeEnd + 3, valueEnd);
+        /**
+         * Parses an element with or without a type tag.
+         */
+        private Object parseAnyElement(InputBuffer in, Class<?> exactType, Type elementType)
+                throws ClassNotFoundException {
+            if (exactType == null) {
+                return parseElement(in, elementType);
+            }
+            if (in.peek() == '{') {
+                return parseObjectValue(exactType, in);
+            }
 
-                    Object dt = parseNotFormattedDateTime(innerClass, value);
-                    collection.add(dt);
+            in.expect('\"');
+            String token = in.readUntil('\"');
+            if (in.peek() != ':') {
+                return untaggedElement(exactType, token);
+            }
+            in.next();
+            return parseElementValue(token, in, elementType);
+        }
 
-                    i = valueEnd + 2;
-                } else if (converter.isListOrSet(innerClass)) {
-                    i = parseCollectionAsElement(collection, sb, innerTypeEnd, innerClass);
+        private Collection<Object> parseUntaggedElements(Collection<Object> collection, Class<?> exactType,
+                                                         InputBuffer in) throws ClassNotFoundException {
+            TypeCategory category = TypeCategory.of(exactType);
+            do {
+                if (category == TypeCategory.OBJECT) {
+                    collection.add(parseObjectValue(exactType, in));
+                } else if (category == TypeCategory.DATE_TIME) {
+                    in.expect('\"');
+                    collection.add(untaggedElement(exactType, in.readUntil('\"')));
                 } else {
-                    i = parseObjectElement(collection, sb, innerTypeEnd, innerClass);
+                    collection.add(parsePlainValue(in, exactType));
                 }
-                if (prev >= i) {
-                    throw new ExportMapperException("Incorrect string format");
+            } while (endOfElement(in, ']'));
+
+            return collection;
+        }
+
+        /**
+         * Converts the quoted content of an untagged element of {@code exactType}.
+         */
+        private Object untaggedElement(Class<?> exactType, String value) {
+            TypeCategory category = TypeCategory.of(exactType);
+            if (category == TypeCategory.OBJECT) {
+                return reference(value);
+            } else if (value.equals("null")) {
+                return null;
+            } else if (category == TypeCategory.DATE_TIME) {
+                return parseNotFormattedDateTime(exactType, value);
+            }
+            return convertPrimitive(value, exactType);
+        }
+
+        /**
+         * Parses a map written either as {@code {"key":"value",...}} for a field with plain
+         * key and value types, or as {@code [key element,value element,...]} of tagged elements.
+         */
+        private Map<Object, Object> parseMap(Class<?> mapType, InputBuffer in, FieldPlan fieldPlan)
+                throws ClassNotFoundException {
+            if (TypeCategory.of(mapType) != TypeCategory.MAP) {
+                throw new ExportMapperException("Type " + mapType.getSimpleName() + " is not exportable");
+            }
+
+            // The type is a Map, so any Object can be put there.
+            @SuppressWarnings("unchecked")
+            Map<Object, Object> map = (Map<Object, Object>) createObject(mapType);
+
+            if (in.peek() == '{') {
+                if (fieldPlan == null || !fieldPlan.isPlainMap()) {
+                    throw new ExportMapperException("Incorrect string format: map entries without types");
+                }
+
+                in.next();
+                if (in.peek() == '}') {
+                    in.next();
+                    return map;
                 }
+                do {
+                    Object key = parsePlainValue(in, fieldPlan.keyType);
+                    in.expect(':');
+                    map.put(key, parsePlainValue(in, fieldPlan.valueType));
+                } while (endOfElement(in, '}'));
+
+                return map;
             }
 
-            return collection;
+            in.expect('[');
+            if (in.peek() == ']') {
+                in.next();
+                return map;
+            }
+            do {
+                Object key = parseElement(in, null);
+                in.expect(',');
+                map.put(key, parseElement(in, null));
+            } while (endOfElement(in, ']'));
+
+            return map;
         }
 
-        private int parseObjectElement(Collection<Object> collection, StringBuilder sb, int innerTypeEnd, Class<?> innerClass) {
-            int i;
-            int opened = 1;
-            int pos = innerTypeEnd + 3;
+        /**
+         * Parses a {@code "type":value} element of a collection or a map,
+         * declared as {@code elementType} if it is known.
+         */
+        private Object parseElement(InputBuffer in, Type elementType) throws ClassNotFoundException {
+            in.expect('\"');
+            String innerType = in.readUntil('\"');
+            in.expect(':');
+            return parseElementValue(innerType, in, elementType);
+        }
 
-            pos = getPos(sb, opened, pos, '{', '}');
+        private Object parseElementValue(String innerType, InputBuffer in, Type elementType)
+                throws ClassNotFoundException {
+            if (innerType.equals("null")) {
+                parseNull(in);
+                return null;
+            }
 
-            String obj = sb.substring(innerTypeEnd + 2, pos);
-            Object value = parseObject(innerClass, obj);
-            collection.add(value);
-            i = pos + 1;
-            return i;
+            Class<?> innerClass = resolve(innerType);
+            TypeCategory category = TypeCategory.of(innerClass);
+
+            if (category == TypeCategory.PRIMITIVE || category == TypeCategory.ENUM) {
+                return parsePrimitiveElement(in, innerClass);
+            } else if (category == TypeCategory.DATE_TIME) {
+                in.expect('\"');
+                return parseNotFormattedDateTime(innerClass, in.readUntil('\"'));
+            } else if (category == TypeCategory.COLLECTION) {
+                return parseCollection(innerClass, in, FieldPlan.elementType(elementType));
+            } else if (category == TypeCategory.MAP) {
+                return parseMap(innerClass, in, null);
+            } else if (category == TypeCategory.ARRAY) {
+                in.expect('\"');
+                return PrimitiveArrays.read(innerClass, in, '\"');
+            } else {
+                return parseObjectValue(innerClass, in);
+            }
         }
 
-        private int parseCollectionAsElement(Collection<Object> collection, StringBuilder sb, int innerTypeEnd, Class<?> innerClass) throws ClassNotFoundException {
-            int i;
-            int opened = 1;
-            int pos = innerTypeEnd + 3;
-            pos = getPos(sb, opened, pos, '[', ']');
+        /**
+         * Parses a quoted wrapper, String or enum of an untagged map entry, or null.
+         */
+        private Object parsePlainValue(InputBuffer in, Class<?> type) {
+            in.expect('\"');
+            if (isNumber(type) && in.peek() != 'n') {
+                return parseNumber(in, type);
+            }
 
-            String col = sb.substring(innerTypeEnd + 2, pos);
-            Object value = parseCollection(innerClass, col);
-            collection.add(value);
-            i = pos + 1;
-            return i;
+            String value = in.readUntil('\"');
+            return value.equals("null") ? null : convertPrimitive(value, type);
         }
 
-        private int parsePrimitiveElement(Collection<Object> collection, StringBuilder sb, int innerTypeEnd, String innerType, Class<?> innerClass) {
-            int i;
-            int valueEnd = sb.indexOf("\"", innerTypeEnd + 3);
-            String value = sb.substring(innerTypeEnd + 3, valueEnd);
+        private Object parsePrimitiveElement(InputBuffer in, Class<?> innerClass) {
+            in.expect('\"');
+            if (isNumber(innerClass)) {
+                return parseNumber(in, innerClass);
+            }
+            return convertPrimitive(in.readUntil('\"'), innerClass);
+        }
 
+        private Object convertPrimitive(String value, Class<?> innerClass) {
             if (innerClass.isEnum()) {
-                try {
-                    Method valueOfMethod = innerClass.getDeclaredMethod("valueOf", String.class);
-                    collection.add(valueOfMethod.invoke(null, value));
-                } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-                    throw new ExportMapperException("Can't parse enum" + innerType);
-                }
-            } else {
-                if (innerClass.equals(String.class)) {
-                    value = stringCleaner.recoverString(value);
-                }
-                collection.add(converter.convertToPrimitiveOrWrapper(value, innerClass));
+                return parseEnum(innerClass, value);
             }
 
-            i = valueEnd + 2;
-            return i;
+            if (innerClass.equals(String.class)) {
+                value = stringCleaner.recoverString(value);
+            }
+            return converter.convertToPrimitiveOrWrapper(value, innerClass);
         }
     }
 
     class JsonWriter {
-        private String serializeObject(Object obj) {
-            checkObjectExportation(obj);
-            checkForCycles(obj);
-            Class<?> clazz = obj.getClass();
-            StringBuilder sb = new StringBuilder();
-            Set<String> fieldNames = getFieldNames(clazz);
+        private final AccessorStrategy accessorStrategy;
+        // Objects and collections on the current path, compared by identity.
+        private final Set<Object> colors = Collections.newSetFromMap(new IdentityHashMap<>());
+        // Ids of written objects in SHARE mode, in the order they were written.
+        private final Map<Object, Integer> references;
+
+        // Ids of type names in DICTIONARY format, in the order of the type table.
+        private final Map<String, String> typeIds;
+
+        // Minimal size of a collection written in parallel, 0 if parallel writing is off.
+        private final int parallelThreshold;
+        private final ForkJoinPool pool;
+
+        private JsonWriter(AccessorStrategy accessorStrategy, ReferenceHandling referenceHandling,
+                           TypeTagFormat typeTagFormat, int parallelThreshold, ForkJoinPool pool) {
+            this.accessorStrategy = accessorStrategy;
+            references = referenceHandling == ReferenceHandling.SHARE ? new IdentityHashMap<>() : null;
+            typeIds = typeTagFormat == TypeTagFormat.DICTIONARY ? new LinkedHashMap<>() : null;
+            // A pool of one thread would only add copying of the chunks.
+            this.parallelThreshold = references == null && typeIds == null && pool.getParallelism() > 1
+                    ? parallelThreshold : 0;
+            this.pool = pool;
+        }
 
-            sb.append('{');
+        private void serializeDocument(Object obj, OutputBuffer out) {
+            if (typeIds == null) {
+                serializeObject(obj, out);
+                return;
+            }
 
-            boolean excludeNulls =
-                    clazz.getAnnotation(Exported.class).nullHandling().equals(NullHandling.EXCLUDE);
+            // The type table precedes the object, so the object is written to memory first.
+            OutputBuffer body = new OutputBuffer();
+            serializeObject(obj, body);
 
-            for (Field field : clazz.getDeclaredFields()) {
-                if (checkFieldIsSerializable(field, excludeNulls, obj)) {
-                    try {
-                        if (converter.isPrimitiveOrWrapper(field.getType()) || field.getType().isEnum()) {
-                            serializePrimitiveField(obj, sb, fieldNames, field);
-                        } else if (converter.isDateTime(field.getType())) {
-                            serializeDateTimeField(obj, sb, fieldNames, field);
-                        } else if (converter.isListOrSet(field.getType())) {
-                            serializeCollectionField(obj, sb, fieldNames, field);
-                        } else {
-                            serializeObjectField(obj, sb, fieldNames, field);
-                        }
-                        sb.append(',');
-                    } catch (IllegalAccessException e) {
-                        throw new ExportMapperException("Can't get access to field | " + e.getMessage());
-                    }
+            out.append("~[");
+            boolean first = true;
+            for (String type : typeIds.keySet()) {
+                first = separate(out, first);
+                out.append('\"').append(type).append('\"');
+            }
+            out.append(']');
+            out.append(body);
+        }
+
+        private String tag(String typeName) {
+            if (typeIds == null || typeName.equals("null")) {
+                return typeName;
+            }
+
+            String id = typeIds.get(typeName);
+            if (id == null) {
+                id = Integer.toString(typeIds.size());
+                typeIds.put(typeName, id);
+            }
+            return id;
+        }
+
+        private void checkForCycles(Object obj) {
+            if (!colors.add(obj)) {
+                throw new ExportMapperException("There is cycle for object of " + obj.getClass());
+            }
+        }
+
+        private void serializeObject(Object obj, OutputBuffer out) {
+            ClassPlan plan = checkObjectExportation(obj);
+            if (references != null) {
+                Integer id = references.putIfAbsent(obj, references.size());
+                if (id != null) {
+                    out.append("\"@").append(Integer.toString(id)).append('\"');
+                    return;
                 }
             }
+            checkForCycles(obj);
 
-            int index;
-            if ((index = sb.lastIndexOf(",")) != -1) {
-                sb.deleteCharAt(index);
+            out.append('{');
+
+            boolean first = true;
+            for (FieldPlan field : plan.fields) {
+                FieldAccessor accessor = field.accessor(accessorStrategy);
+                if (field.type.isPrimitive()) {
+                    first = separate(out, first);
+                    serializeUnboxedField(obj, accessor, out, field);
+                    continue;
+                }
+
+                Object objValue = accessor.get(obj);
+                if (plan.excludeNulls && objValue == null) {
+                    continue;
+                }
+
+                first = separate(out, first);
+                switch (field.category) {
+                    case PRIMITIVE, ENUM -> serializePrimitiveField(objValue, out, field);
+                    case DATE_TIME -> serializeDateTimeField(objValue, out, field);
+                    case COLLECTION -> serializeCollectionField(objValue, out, field);
+                    case MAP -> serializeMapField(objValue, out, field);
+                    case ARRAY -> serializeArrayField(objValue, out, field);
+                    default -> serializeObjectField(objValue, out, field);
+                }
             }
-            sb.append('}');
+
+            out.append('}');
 
             colors.remove(obj);
+        }
 
-            return sb.toString();
+        private boolean separate(OutputBuffer out, boolean first) {
+            if (!first) {
+                out.append(',');
+            }
+            return false;
         }
 
-        private void serializeObjectField(Object obj, StringBuilder sb, Set<String> fieldNames, Field field) throws IllegalAccessException {
-            String type = field.getType().getName();
+        private void serializeObjectField(Object objValue, OutputBuffer out, FieldPlan field) {
+            // Key + type, the real one for subclasses of the declared type.
+            out.append('\"');
+            out.append(field.name).append('#').append(tag(objValue == null || objValue.getClass() == field.type
+                    ? field.typeName : objValue.getClass().getName()));
+            out.append("\":");
 
-            // Key + type.
-            sb.append('\"');
-            sb.append(getPropertyName(field, fieldNames))
-                    .append('#').append(type);
-            sb.append("\":");
+            // Value.
+            if (objValue == null) {
+                out.append("\"null\"");
+            } else {
+                serializeObject(objValue, out);
+            }
+        }
+
+        private void serializeArrayField(Object objValue, OutputBuffer out, FieldPlan field) {
+            // Key + type, "null" for null arrays.
+            out.append('\"');
+            out.append(field.name)
+                    .append('#').append(tag(objValue == null ? "null" : field.typeName));
+            out.append("\":");
 
             // Value.
-            Object objValue = field.get(obj);
             if (objValue == null) {
-                sb.append("\"null\"");
+                out.append("\"null\"");
             } else {
-                sb.append(serializeObject(objValue));
+                out.append('\"');
+                PrimitiveArrays.write(objValue, out);
+                out.append('\"');
             }
         }
 
-        private void serializeCollectionField(Object obj, StringBuilder sb, Set<String> fieldNames, Field field) throws IllegalAccessException {
-            Object objValue = field.get(obj);
+        private void serializeCollectionField(Object objValue, OutputBuffer out, FieldPlan field) {
             String realType;
             String abstractType;
+            if (objValue instanceof LazyList lazy) {
+                objValue = lazy.list();
+            }
             if (objValue != null) {
                 realType = objValue.getClass().getName();
-                abstractType = field.getGenericType().getTypeName();
+                abstractType = field.genericTypeName;
             } else {
                 realType = "null";
                 abstractType = "null";
@@ -466,247 +1286,386 @@ public class Serializer implements Mapper {
 
 
             // Key + type.
-            sb.append('\"');
-            sb.append(getPropertyName(field, fieldNames))
-                    .append('#').append(realType)
-                    .append('#').append(abstractType);
-            sb.append("\":");
+            out.append('\"');
+            out.append(field.name)
+                    .append('#').append(tag(realType))
+                    .append('#').append(tag(abstractType));
+            out.append("\":");
 
             // Value.
             if (objValue == null) {
-                sb.append("\"null\"");
+                out.append("\"null\"");
             } else {
-                sb.append(serializeArray((Collection<?>) objValue));
+                serializeArray((Collection<?>) objValue, out, field.elementType);
             }
         }
 
-        private void serializeDateTimeField(Object obj, StringBuilder sb, Set<String> fieldNames, Field field) throws IllegalAccessException {
-            String type = field.getType().getName();
-            String dtFormat = field.isAnnotationPresent(DateFormat.class) ?
-                    field.getAnnotation(DateFormat.class).value() : null;
+        private void serializeMapField(Object objValue, OutputBuffer out, FieldPlan field) {
+            String realType;
+            String abstractType;
+            if (objValue != null) {
+                realType = objValue.getClass().getName();
+                abstractType = field.genericTypeName;
+            } else {
+                realType = "null";
+                abstractType = "null";
+            }
+
+            // Key + type.
+            out.append('\"');
+            out.append(field.name)
+                    .append('#').append(tag(realType))
+                    .append('#').append(tag(abstractType));
+            out.append("\":");
 
-            String res;
-            Object objValue = field.get(obj);
+            // Value.
             if (objValue == null) {
-                res = "null";
+                out.append("\"null\"");
+            } else if (field.isPlainMap()) {
+                serializePlainMap((Map<?, ?>) objValue, out);
             } else {
-                if (dtFormat != null) {
-                    DateTimeFormatter timeColonFormatter = DateTimeFormatter.ofPattern(dtFormat);
-                    res = timeColonFormatter.format((TemporalAccessor) objValue);
-                } else {
-                    res = objValue.toString();
-                }
+                serializeMap((Map<?, ?>) objValue, out);
             }
+        }
 
+        private void serializeDateTimeField(Object objValue, OutputBuffer out, FieldPlan field) {
             // Key + type.
-            sb.append('\"');
-            sb.append(getPropertyName(field, fieldNames))
-                    .append('#').append(type);
-            sb.append('\"');
+            out.append('\"');
+            out.append(field.name)
+                    .append('#').append(tag(field.typeName));
+            out.append('\"');
 
             // Value.
-            sb.append(":\"");
-            sb.append(res);
-            sb.append("\"");
+            out.append(":\"");
+            if (objValue == null) {
+                out.append("null");
+            } else if (field.formatter != null) {
+                out.append(field.formatter.format((TemporalAccessor) objValue));
+            } else {
+                IsoDateTime.write(objValue, out);
+            }
+            out.append('\"');
         }
 
-        private void serializePrimitiveField(Object obj, StringBuilder sb, Set<String> fieldNames, Field field) throws IllegalAccessException {
-            String type = field.getType().getName();
+        private void serializePrimitiveField(Object objValue, OutputBuffer out, FieldPlan field) {
+            // Key + type.
+            out.append('\"');
+            out.append(field.name)
+                    .append('#').append(tag(field.typeName));
+            out.append('\"');
+
+            // Value.
+            out.append(":\"");
+            if (field.type.equals(String.class)) {
+                stringCleaner.cleanString(String.valueOf(objValue), out);
+            } else {
+                appendValue(objValue, out);
+            }
+            out.append('\"');
+        }
 
+        private void serializeUnboxedField(Object obj, FieldAccessor accessor, OutputBuffer out, FieldPlan field) {
             // Key + type.
-            sb.append('\"');
-            sb.append(getPropertyName(field, fieldNames))
-                    .append('#').append(type);
-            sb.append('\"');
+            out.append('\"');
+            out.append(field.name)
+                    .append('#').append(tag(field.typeName));
+            out.append('\"');
 
             // Value.
-            sb.append(":\"");
-            String value = String.valueOf(field.get(obj));
-            if (field.getType().equals(String.class)) {
-                value = stringCleaner.cleanString(value);
+            out.append(":\"");
+            Class<?> type = field.type;
+            if (type == int.class) {
+                out.appendLong(accessor.getInt(obj));
+            } else if (type == long.class) {
+                out.appendLong(accessor.getLong(obj));
+            } else if (type == double.class) {
+                out.appendDouble(accessor.getDouble(obj));
+            } else if (type == boolean.class) {
+                out.append(accessor.getBoolean(obj) ? "true" : "false");
+            } else if (type == float.class) {
+                out.appendFloat(accessor.getFloat(obj));
+            } else if (type == short.class) {
+                out.appendLong(accessor.getShort(obj));
+            } else if (type == byte.class) {
+                out.appendLong(accessor.getByte(obj));
+            } else {
+                out.append(accessor.getChar(obj));
             }
-            sb.append(value);
-            sb.append("\"");
+            out.append('\"');
         }
 
 
-        private String serializeArray(Collection<?> array) {
+        /**
+         * Writes a collection whose elements are declared as {@code elementType}, which may be null.
+         * Elements of a final declared type are written without type tags.
+         */
+        private void serializeArray(Collection<?> array, OutputBuffer out, Type elementType) {
             checkForCycles(array);
-            StringBuilder sb = new StringBuilder();
-            sb.append('[');
-
-            if (array.isEmpty()) {
-                sb.append(']');
-                return sb.toString();
-            }
-
-            for (Object obj : array) {
-                if (obj == null) {
-                    sb.append('\"');
-                    sb.append("null");
-                    sb.append('\"');
-                    sb.append(":\"");
-                    sb.append("null");
-                    sb.append("\"");
-                    sb.append(',');
-                    continue;
-                }
+            out.append('[');
 
-                Class<?> clazz = obj.getClass();
-                if (isNotSerializableType(clazz)) {
-                    throw new ExportMapperException("Type " + clazz.getSimpleName() + " is not exportable");
+            Class<?> exactType = FieldPlan.exactType(elementType);
+            if (parallelThreshold > 0 && array.size() >= parallelThreshold) {
+                serializeInParallel(array.toArray(), out, exactType, elementType);
+            } else {
+                boolean first = true;
+                for (Object obj : array) {
+                    first = separate(out, first);
+                    serializeArrayElement(out, obj, exactType, elementType);
                 }
+            }
 
-                if (converter.isPrimitiveOrWrapper(clazz) || converter.isDateTime(clazz) || clazz.isEnum()) {
-                    serializePrimitiveElement(sb, obj, clazz);
-                } else if (converter.isListOrSet(clazz)) {
-                    String type = clazz.getName();
+            out.append(']');
+            colors.remove(array);
+        }
 
-                    // Key + type.
-                    sb.append('\"');
-                    sb.append(type);
-                    sb.append("\":");
+        private void serializeArrayElement(OutputBuffer out, Object obj, Class<?> exactType, Type elementType) {
+            if (exactType != null) {
+                serializeUntaggedElement(out, obj, exactType);
+            } else {
+                serializeElement(out, obj, elementType);
+            }
+        }
 
-                    // Value.
-                    sb.append(serializeArray((Collection<?>) obj));
-                } else {
-                    serializeObjectElement(sb, obj, clazz);
+        /**
+         * Writes chunks of {@code elements} to separate buffers on the pool and appends them in order.
+         * Every chunk has its own writer knowing the objects on the current path, so cycles
+         * through the collection are still found.
+         */
+        private void serializeInParallel(Object[] elements, OutputBuffer out, Class<?> exactType, Type elementType) {
+            int chunks = Math.min(elements.length, pool.getParallelism() * 4);
+            List<Callable<OutputBuffer>> tasks = new ArrayList<>(chunks);
+            for (int i = 0; i < chunks; ++i) {
+                int start = (int) ((long) elements.length * i / chunks);
+                int end = (int) ((long) elements.length * (i + 1) / chunks);
+                tasks.add(() -> {
+                    JsonWriter writer = new JsonWriter(accessorStrategy, ReferenceHandling.FAIL,
+                            TypeTagFormat.INLINE, 0, pool);
+                    writer.colors.addAll(colors);
+
+                    OutputBuffer chunk = new OutputBuffer();
+                    for (int j = start; j < end; ++j) {
+                        writer.separate(chunk, j == start);
+                        writer.serializeArrayElement(chunk, elements[j], exactType, elementType);
+                    }
+                    return chunk;
+                });
+            }
+
+            boolean first = true;
+            for (OutputBuffer chunk : invokeAll(pool, tasks)) {
+                first = separate(out, first);
+                out.append(chunk);
+            }
+        }
+
+        /**
+         * Writes entries of a map field with plain key and value types as {@code "key":"value"}.
+         */
+        private void serializePlainMap(Map<?, ?> map, OutputBuffer out) {
+            out.append('{');
+
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                first = separate(out, first);
+                serializePlainValue(entry.getKey(), out);
+                out.append(':');
+                serializePlainValue(entry.getValue(), out);
+            }
+
+            out.append('}');
+        }
+
+        private void serializePlainValue(Object value, OutputBuffer out) {
+            out.append('\"');
+            if (value instanceof String str) {
+                stringCleaner.cleanString(str, out);
+            } else {
+                appendValue(value, out);
+            }
+            out.append('\"');
+        }
+
+        /**
+         * Writes a map as a flat array of tagged elements: key, value, key, value...
+         */
+        private void serializeMap(Map<?, ?> map, OutputBuffer out) {
+            checkForCycles(map);
+            out.append('[');
+
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                first = separate(out, first);
+                serializeElement(out, entry.getKey(), null);
+                out.append(',');
+                serializeElement(out, entry.getValue(), null);
+            }
+
+            out.append(']');
+            colors.remove(map);
+        }
+
+        private void serializeUntaggedElement(OutputBuffer out, Object obj, Class<?> exactType) {
+            if (obj == null) {
+                out.append("\"null\"");
+                return;
+            }
+            if (obj.getClass() != exactType) {
+                throw new ExportMapperException("Element of type " + obj.getClass().getSimpleName() +
+                        " in a collection of " + exactType.getSimpleName());
+            }
+
+            switch (TypeCategory.of(exactType)) {
+                case OBJECT -> serializeObject(obj, out);
+                case DATE_TIME -> {
+                    out.append('\"');
+                    IsoDateTime.write(obj, out);
+                    out.append('\"');
                 }
-                sb.append(',');
+                default -> serializePlainValue(obj, out);
             }
+        }
 
-            int index;
-            if ((index = sb.lastIndexOf(",")) != -1) {
-                sb.deleteCharAt(index);
+        /**
+         * Writes a {@code "type":value} element of a collection or a map,
+         * declared as {@code elementType} if it is known.
+         */
+        private void serializeElement(OutputBuffer out, Object obj, Type elementType) {
+            if (obj == null) {
+                out.append("\"null\":\"null\"");
+                return;
+            }
+            if (obj instanceof LazyList lazy) {
+                obj = lazy.list();
+            }
+
+            Class<?> clazz = obj.getClass();
+            if (isNotSerializableType(clazz)) {
+                throw new ExportMapperException("Type " + clazz.getSimpleName() + " is not exportable");
             }
-            sb.append(']');
-            colors.remove(array);
 
-            return sb.toString();
+            TypeCategory category = TypeCategory.of(clazz);
+            if (category == TypeCategory.PRIMITIVE || category == TypeCategory.DATE_TIME
+                    || category == TypeCategory.ENUM) {
+                serializePrimitiveElement(out, obj, clazz);
+            } else if (category == TypeCategory.COLLECTION || category == TypeCategory.MAP) {
+                String type = tag(clazz.getName());
+
+                // Key + type.
+                out.append('\"');
+                out.append(type);
+                out.append("\":");
+
+                // Value.
+                if (category == TypeCategory.COLLECTION) {
+                    serializeArray((Collection<?>) obj, out, FieldPlan.elementType(elementType));
+                } else {
+                    serializeMap((Map<?, ?>) obj, out);
+                }
+            } else if (category == TypeCategory.ARRAY) {
+                // Key + type.
+                out.append('\"');
+                out.append(tag(clazz.getName()));
+                out.append("\":\"");
+
+                // Value.
+                PrimitiveArrays.write(obj, out);
+                out.append('\"');
+            } else {
+                serializeObjectElement(out, obj, clazz);
+            }
         }
 
-        private void serializeObjectElement(StringBuilder sb, Object obj, Class<?> clazz) {
-            String type = clazz.getName();
+        private void serializeObjectElement(OutputBuffer out, Object obj, Class<?> clazz) {
+            String type = tag(clazz.getName());
 
             // Key + type.
-            sb.append('\"');
-            sb.append(type);
-            sb.append("\":");
+            out.append('\"');
+            out.append(type);
+            out.append("\":");
 
             // Value.
-            sb.append(serializeObject(obj));
+            serializeObject(obj, out);
         }
 
-        private void serializePrimitiveElement(StringBuilder sb, Object obj, Class<?> clazz) {
-            String type = clazz.getName();
+        private void serializePrimitiveElement(OutputBuffer out, Object obj, Class<?> clazz) {
+            String type = tag(clazz.getName());
 
             // Key + type.
-            sb.append('\"');
-            sb.append(type);
-            sb.append('\"');
+            out.append('\"');
+            out.append(type);
+            out.append('\"');
 
             // Value.
-            sb.append(":\"");
-
-            String value = String.valueOf(obj);
+            out.append(":\"");
             if (clazz.equals(String.class)) {
-                value = stringCleaner.cleanString(value);
+                stringCleaner.cleanString((String) obj, out);
+            } else if (TypeCategory.of(clazz) == TypeCategory.DATE_TIME) {
+                IsoDateTime.write(obj, out);
+            } else {
+                appendValue(obj, out);
             }
-            sb.append(value);
-            sb.append("\"");
+            out.append('\"');
         }
-    }
-
 
-    private void checkObjectExportation(Object object) {
-        if (Objects.isNull(object)) {
-            throw new ExportMapperException("Can't serialize a null object");
+        /**
+         * Appends a primitive wrapper or an enum, writing numbers without creating Strings.
+         */
+        private void appendValue(Object value, OutputBuffer out) {
+            if (value instanceof Integer || value instanceof Long
+                    || value instanceof Short || value instanceof Byte) {
+                out.appendLong(((Number) value).longValue());
+            } else if (value instanceof Double d) {
+                out.appendDouble(d);
+            } else if (value instanceof Float f) {
+                out.appendFloat(f);
+            } else {
+                out.append(String.valueOf(value));
+            }
         }
-
-        checkClassExportation(object.getClass());
     }
 
-    private void checkClassExportation(Class<?> clazz) {
-        if (!clazz.isAnnotationPresent(Exported.class)) {
-            throw new ExportMapperException("The class " + clazz.getSimpleName() +
-                    " is not annotated with Exported");
-        }
-
-        if (clazz.getSuperclass() != Object.class) {
-            throw new ExportMapperException("The class " + clazz.getSimpleName() +
-                    " has not only Object superclass");
-        }
 
-        try {
-            clazz.getConstructor();
-        } catch (NoSuchMethodException ex) {
-            throw new ExportMapperException("The class " + clazz.getSimpleName() +
-                    " does not have parameterless public constructor");
-        }
-    }
-
-    private boolean checkFieldIsSerializable(Field field, boolean excludeNulls,
-                                             Object object) {
-        if (!field.isSynthetic() && !Modifier.isStatic(field.getModifiers())) {
-            if (field.trySetAccessible() && !field.isAnnotationPresent(Ignored.class)) {
-                try {
-                    return !excludeNulls || field.get(object) != null;
-                } catch (IllegalAccessException e) {
-                    throw new ExportMapperException("Can't get access to field " +
-                            field.getName() + " of " + object.getClass());
+    /**
+     * Runs {@code tasks} on {@code pool} and returns their results in order, rethrowing
+     * the first failure.
+     */
+    private static <T> List<T> invokeAll(ForkJoinPool pool, List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<>(tasks.size());
+        for (Future<T> future : pool.invokeAll(tasks)) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ExportMapperException("Interrupted while waiting for parallel tasks");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
                 }
+                throw new ExportMapperException(e.getCause().getMessage());
             }
         }
-
-        return false;
+        return results;
     }
 
-    private Set<String> getFieldNames(Class<?> clazz) {
-        Set<String> fieldNames = new HashSet<>();
-        for (Field field : clazz.getDeclaredFields()) {
-            if (!field.isSynthetic() && !Modifier.isStatic(field.getModifiers())) {
-                fieldNames.add(field.getName());
-            }
+    private ClassPlan checkObjectExportation(Object object) {
+        if (Objects.isNull(object)) {
+            throw new ExportMapperException("Can't serialize a null object");
         }
 
-        return fieldNames;
+        return ClassPlan.of(object.getClass());
     }
 
-    private String getPropertyName(Field field, Set<String> fieldNames) {
-        String value = "";
-        if (field.isAnnotationPresent(PropertyName.class)) {
-            value = field.getAnnotation(PropertyName.class).value();
+    private Class<?> forName(String name) throws ClassNotFoundException {
+        Class<?> type = classes.get(name);
+        if (type == null) {
+            type = Class.forName(name);
+            classes.put(name, type);
         }
-
-        if (fieldNames.contains(value)) {
-            throw new ExportMapperException("The class has property name same as " +
-                    "field's name: " + value);
-        }
-
-        return value.isEmpty() ? field.getName() : value;
+        return type;
     }
 
     public boolean isNotSerializableType(Class<?> clazz) {
-        return !converter.isPrimitiveOrWrapper(clazz) && !converter.isListOrSet(clazz) &&
-                !converter.isDateTime(clazz) && !clazz.isEnum() &&
+        return TypeCategory.of(clazz) == TypeCategory.OBJECT &&
                 !clazz.isAnnotationPresent(Exported.class);
     }
-
-    private Object createObject(Class<?> clazz) {
-        try {
-            return clazz.getDeclaredConstructor().newInstance();
-        } catch (InvocationTargetException |
-                InstantiationException | IllegalAccessException |
-                NoSuchMethodException e) {
-            throw new ExportMapperException(e.getMessage());
-        }
-    }
-
-    private void checkForCycles(Object obj) {
-        if (colors.contains(obj)) {
-            throw new ExportMapperException("There is cycle for object of " + obj.getClass());
-        }
-
-        colors.add(obj);
-    }
 }
@@ -0,0 +1,46 @@
+package mapper.serializers;
+
+import mapper.utils.PrimitiveArrays;
+import mapper.utils.TypeConverter;
+
+/**
+ * Kind of value the reader and the writer have to deal with.
+ * Resolved once per class and cached, so hot paths do not repeat
+ * {@link TypeConverter} checks for every value.
+ */
+enum TypeCategory {
+    PRIMITIVE,
+    ENUM,
+    DATE_TIME,
+    COLLECTION,
+    MAP,
+    ARRAY,
+    OBJECT;
+
+    private static final TypeConverter converter = new TypeConverter();
+
+    private static final ClassValue<TypeCategory> categories = new ClassValue<>() {
+        @Override
+        protected TypeCategory computeValue(Class<?> type) {
+            if (converter.isPrimitiveOrWrapper(type)) {
+                return PRIMITIVE;
+            } else if (type.isEnum()) {
+                return ENUM;
+            } else if (converter.isDateTime(type)) {
+                return DATE_TIME;
+            } else if (converter.isListOrSet(type)) {
+                return COLLECTION;
+            } else if (converter.isMap(type)) {
+                return MAP;
+            } else if (PrimitiveArrays.isPrimitiveArray(type)) {
+                return ARRAY;
+            }
+
+            return OBJECT;
+        }
+    };
+
+    static TypeCategory of(Class<?> clazz) {
+        return categories.get(clazz);
+    }
+}
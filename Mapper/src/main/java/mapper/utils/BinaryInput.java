@@ -0,0 +1,191 @@
+package mapper.utils;
+
+import mapper.exceptions.ExportMapperException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Cursor over the binary representation written by {@link BinaryOutput}.
+ * <p>
+ * The input is either held in memory completely or read from an {@link InputStream}
+ * chunk by chunk, in which case only one chunk is kept in memory at a time.
+ * <p>
+ * I/O errors of the source are thrown as {@link UncheckedIOException}.
+ */
+public class BinaryInput {
+    private static final int CHUNK_SIZE = 8192;
+
+    private final InputStream source;
+    private byte[] bytes;
+    private int pos;
+    private int limit;
+
+    public BinaryInput(byte[] input) {
+        source = null;
+        bytes = input;
+        limit = input.length;
+    }
+
+    public BinaryInput(InputStream source) {
+        this.source = source;
+        bytes = new byte[CHUNK_SIZE];
+    }
+
+    /**
+     * Returns whether the input has no more bytes.
+     */
+    public boolean isEnd() {
+        return pos == limit && !fill();
+    }
+
+    public int readByte() {
+        if (pos == limit && !fill()) {
+            throw new ExportMapperException("Unexpected end of input");
+        }
+        return bytes[pos++] & 0xFF;
+    }
+
+    public int readVarInt() {
+        int result = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = readByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new ExportMapperException("Malformed varint");
+    }
+
+    public long readVarLong() {
+        long result = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new ExportMapperException("Malformed varint");
+    }
+
+    public int readSignedVarInt() {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public long readSignedVarLong() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public float readFloat() {
+        return Float.intBitsToFloat((int) readFixed(4));
+    }
+
+    public double readDouble() {
+        return Double.longBitsToDouble(readFixed(8));
+    }
+
+    /**
+     * Reads the length of a string, an array or a collection. Every element takes at least
+     * one byte, so for input held in memory the length can't exceed the bytes left.
+     */
+    public int readLength() {
+        int length = readVarInt();
+        if (length < 0 || source == null && length > limit - pos) {
+            throw new ExportMapperException("Malformed length " + Integer.toUnsignedString(length));
+        }
+        return length;
+    }
+
+    /**
+     * Returns how many of {@code length} elements to allocate first: all of them for input held
+     * in memory, at most a chunk for streamed input, which may end before the elements do.
+     */
+    public int initialCapacity(int length) {
+        return source == null ? length : Math.min(length, CHUNK_SIZE);
+    }
+
+    /**
+     * Returns the next capacity of an array of {@code length} elements filled up to {@code capacity}.
+     */
+    public static int grow(int capacity, int length) {
+        return (int) Math.min(length, 2L * capacity);
+    }
+
+    public String readString() {
+        int length = readLength();
+        if (limit - pos >= length) {
+            String str = new String(bytes, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return str;
+        }
+
+        // String continues in the next chunks.
+        byte[] encoded = new byte[initialCapacity(length)];
+        int copied = 0;
+        while (copied < length) {
+            if (pos == limit && !fill()) {
+                throw new ExportMapperException("Unexpected end of input");
+            }
+            if (copied == encoded.length) {
+                encoded = Arrays.copyOf(encoded, grow(copied, length));
+            }
+            int count = Math.min(encoded.length - copied, limit - pos);
+            System.arraycopy(bytes, pos, encoded, copied, count);
+            pos += count;
+            copied += count;
+        }
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Skips a string written by {@link BinaryOutput#writeString(String)}.
+     */
+    public void skipString() {
+        int length = readLength();
+        while (length > 0) {
+            if (pos == limit && !fill()) {
+                throw new ExportMapperException("Unexpected end of input");
+            }
+            int count = Math.min(length, limit - pos);
+            pos += count;
+            length -= count;
+        }
+    }
+
+    private long readFixed(int count) {
+        long bits = 0;
+        for (int i = 0; i < count; ++i) {
+            bits |= (long) readByte() << (8 * i);
+        }
+        return bits;
+    }
+
+    private boolean fill() {
+        if (source == null) {
+            return false;
+        }
+
+        try {
+            int read;
+            do {
+                read = source.read(bytes, 0, bytes.length);
+            } while (read == 0);
+
+            if (read < 0) {
+                return false;
+            }
+            pos = 0;
+            limit = read;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package mapper.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Byte buffer for the binary representation: varints, fixed-width floating point numbers
+ * and length-prefixed {@link java.nio.charset.StandardCharsets#UTF_8} strings.
+ * <p>
+ * Without a sink the buffer grows and its content is taken with {@link #toByteArray()}.
+ * With an {@link OutputStream} sink the buffer is written to it every time it fills up.
+ * <p>
+ * I/O errors of the sink are thrown as {@link UncheckedIOException}.
+ */
+public class BinaryOutput {
+    private static final int DEFAULT_CAPACITY = 8192;
+
+    private final OutputStream sink;
+    private byte[] bytes;
+    private int pos;
+
+    public BinaryOutput() {
+        this(null);
+    }
+
+    public BinaryOutput(OutputStream sink) {
+        this.sink = sink;
+        bytes = new byte[DEFAULT_CAPACITY];
+    }
+
+    public void writeByte(int b) {
+        if (pos == bytes.length) {
+            makeRoom(1);
+        }
+        bytes[pos++] = (byte) b;
+    }
+
+    /**
+     * Writes unsigned LEB128 varint.
+     */
+    public void writeVarInt(int value) {
+        if (bytes.length - pos < 5) {
+            makeRoom(5);
+        }
+        while ((value & ~0x7F) != 0) {
+            bytes[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[pos++] = (byte) value;
+    }
+
+    public void writeVarLong(long value) {
+        if (bytes.length - pos < 10) {
+            makeRoom(10);
+        }
+        while ((value & ~0x7FL) != 0) {
+            bytes[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[pos++] = (byte) value;
+    }
+
+    /**
+     * Writes signed value as zigzag varint, so small negative numbers stay short.
+     */
+    public void writeSignedVarInt(int value) {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    public void writeSignedVarLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public void writeFloat(float value) {
+        writeFixed(Float.floatToRawIntBits(value), 4);
+    }
+
+    public void writeDouble(double value) {
+        writeFixed(Double.doubleToRawLongBits(value), 8);
+    }
+
+    public void writeString(String str) {
+        int length = str.length();
+        int encoded = length;
+        for (int i = 0; i < length; ++i) {
+            char c = str.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                encoded += 1;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(str.charAt(i + 1))) {
+                encoded += 2;
+                ++i;
+            } else {
+                encoded += 2;
+            }
+        }
+
+        writeVarInt(encoded);
+        for (int i = 0; i < length; ++i) {
+            if (bytes.length - pos < 4) {
+                makeRoom(4);
+            }
+            char c = str.charAt(i);
+            if (c < 0x80) {
+                bytes[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[pos++] = (byte) (0xC0 | (c >> 6));
+                bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(str.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, str.charAt(++i));
+                bytes[pos++] = (byte) (0xF0 | (cp >> 18));
+                bytes[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                bytes[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                bytes[pos++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogate is replaced with a three byte sequence of U+FFFD.
+                bytes[pos++] = (byte) 0xEF;
+                bytes[pos++] = (byte) 0xBF;
+                bytes[pos++] = (byte) 0xBD;
+            } else {
+                bytes[pos++] = (byte) (0xE0 | (c >> 12));
+                bytes[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    public byte[] toByteArray() {
+        byte[] result = new byte[pos];
+        System.arraycopy(bytes, 0, result, 0, pos);
+        return result;
+    }
+
+    /**
+     * Writes the buffered bytes to the sink and flushes it.
+     */
+    public void flush() {
+        if (sink == null) {
+            return;
+        }
+
+        drain();
+        try {
+            sink.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeFixed(long bits, int count) {
+        if (bytes.length - pos < count) {
+            makeRoom(count);
+        }
+        for (int i = 0; i < count; ++i) {
+            bytes[pos++] = (byte) bits;
+            bits >>>= 8;
+        }
+    }
+
+    private void makeRoom(int required) {
+        if (sink != null) {
+            drain();
+        }
+
+        if (bytes.length - pos < required) {
+            byte[] grown = new byte[Math.max(bytes.length * 2, pos + required)];
+            System.arraycopy(bytes, 0, grown, 0, pos);
+            bytes = grown;
+        }
+    }
+
+    private void drain() {
+        try {
+            sink.write(bytes, 0, pos);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        pos = 0;
+    }
+}
@@ -0,0 +1,67 @@
+package mapper.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Output stream collecting bytes in a direct {@link ByteBuffer} and writing it to
+ * a {@link FileChannel} only when it is full or flushed, so documents smaller than
+ * the buffer are written with a single {@link FileChannel#write(ByteBuffer)} call.
+ * The channel is not closed by this stream.
+ */
+public class ChannelOutputStream extends OutputStream {
+    private static final int DEFAULT_CAPACITY = 1 << 18;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    public ChannelOutputStream(FileChannel channel) {
+        this(channel, DEFAULT_CAPACITY);
+    }
+
+    public ChannelOutputStream(FileChannel channel, int capacity) {
+        this.channel = channel;
+        buffer = ByteBuffer.allocateDirect(capacity);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.put(b, off, count);
+            off += count;
+            len -= count;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        drain();
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,425 @@
+package mapper.utils;
+
+import mapper.exceptions.ExportMapperException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Cursor over the serialized representation.
+ * <p>
+ * The input is either held in memory completely or read from a {@link Reader}
+ * chunk by chunk, in which case only one chunk is kept in memory at a time.
+ * <p>
+ * I/O errors of the source are thrown as {@link UncheckedIOException}.
+ */
+public class InputBuffer {
+    private static final int CHUNK_SIZE = 8192;
+
+    private final Reader source;
+    private final char[] chars;
+    private int pos;
+    private int limit;
+    private StringBuilder spill;
+    // Built for input held in memory when element bounds are first needed.
+    private StructuralIndex index;
+
+    public InputBuffer(String input) {
+        source = null;
+        chars = input.toCharArray();
+        limit = chars.length;
+    }
+
+    /**
+     * Reads the first {@code length} characters of {@code chars}, which are not copied.
+     */
+    public InputBuffer(char[] chars, int length) {
+        this(chars, 0, length, null);
+    }
+
+    public InputBuffer(Reader source) {
+        this.source = source;
+        chars = new char[CHUNK_SIZE];
+    }
+
+    private InputBuffer(char[] chars, int start, int end, StructuralIndex index) {
+        source = null;
+        this.chars = chars;
+        pos = start;
+        limit = end;
+        this.index = index;
+    }
+
+    /**
+     * Returns whether the whole input is held in memory, which is required by
+     * {@link #elementBounds()}, {@link #slice(int, int)}, {@link #sliceValue()}, {@link #position()}
+     * and {@link #moveTo(int)}.
+     */
+    public boolean isInMemory() {
+        return source == null;
+    }
+
+    /**
+     * Finds elements of the collection whose opening bracket has just been consumed, without
+     * consuming anything. Element {@code i} lies between {@code bounds[i]} (inclusive) and
+     * {@code bounds[i + 1] - 1} (exclusive, the position of the following comma or closing
+     * bracket), the last bound is the position after the closing bracket.
+     * The collection must not be empty.
+     * <p>
+     * Nested objects and collections are skipped through a {@link StructuralIndex} of the input,
+     * built on the first call, so only the top-level tokens of the collection are scanned.
+     */
+    public int[] elementBounds() {
+        if (index == null) {
+            index = StructuralIndex.of(chars, 0, limit);
+        }
+
+        int[] bounds = new int[16];
+        int count = 0;
+        bounds[count++] = pos;
+
+        int i = pos;
+        while (true) {
+            // An element is a value or a "type":value pair.
+            i = skipToken(i);
+            if (i < limit && chars[i] == ':') {
+                i = skipToken(i + 1);
+            }
+            if (i == limit) {
+                throw new ExportMapperException("Unexpected end of input");
+            }
+
+            char c = chars[i++];
+            if (c != ',' && c != ']') {
+                throw new ExportMapperException("Incorrect string format: unexpected " + c);
+            }
+            if (count == bounds.length) {
+                bounds = Arrays.copyOf(bounds, count * 2);
+            }
+            bounds[count++] = i;
+            if (c == ']') {
+                return Arrays.copyOf(bounds, count);
+            }
+        }
+    }
+
+    /**
+     * Returns the position after the quoted string, object or collection starting at {@code i}.
+     */
+    private int skipToken(int i) {
+        if (i == limit) {
+            throw new ExportMapperException("Unexpected end of input");
+        }
+
+        char c = chars[i];
+        if (c == '{' || c == '[') {
+            return index.closing(i) + 1;
+        } else if (c != '\"') {
+            throw new ExportMapperException("Incorrect string format: unexpected " + c);
+        }
+
+        for (int j = i + 1; j < limit; ++j) {
+            if (chars[j] == '\"') {
+                return j + 1;
+            }
+        }
+        throw new ExportMapperException("Unexpected end of input");
+    }
+
+    /**
+     * Returns a buffer over characters from {@code start} (inclusive) to {@code end} (exclusive)
+     * of the in-memory input, sharing them with this buffer.
+     */
+    public InputBuffer slice(int start, int end) {
+        return new InputBuffer(chars, start, end, index);
+    }
+
+    /**
+     * Skips the object or collection at the in-memory cursor and returns a buffer over it,
+     * sharing characters with this buffer. Nested values are skipped through the
+     * {@link StructuralIndex} of the input, built on the first call.
+     */
+    public InputBuffer sliceValue() {
+        if (index == null) {
+            index = StructuralIndex.of(chars, 0, limit);
+        }
+
+        int start = pos;
+        skipValue();
+        return slice(start, pos);
+    }
+
+    /**
+     * Returns the position of the in-memory cursor.
+     */
+    public int position() {
+        return pos;
+    }
+
+    /**
+     * Moves the in-memory cursor to {@code position}.
+     */
+    public void moveTo(int position) {
+        pos = position;
+    }
+
+    /**
+     * Returns the next character without consuming it, or -1 at the end of input.
+     */
+    public int peek() {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return chars[pos];
+    }
+
+    public char next() {
+        if (pos == limit && !fill()) {
+            throw new ExportMapperException("Unexpected end of input");
+        }
+        return chars[pos++];
+    }
+
+    /**
+     * Consumes the next character, which has to be {@code c}.
+     */
+    public void expect(char c) {
+        if (next() != c) {
+            throw new ExportMapperException("Incorrect string format: expected " + c);
+        }
+    }
+
+    /**
+     * Consumes characters up to {@code stop} (inclusive) and returns them without {@code stop}.
+     */
+    public String readUntil(char stop) {
+        StringBuilder sb = null;
+        while (true) {
+            if (pos == limit && !fill()) {
+                throw new ExportMapperException("Unexpected end of input");
+            }
+
+            int start = pos;
+            while (pos < limit) {
+                if (chars[pos] == stop) {
+                    String token;
+                    if (sb == null) {
+                        token = new String(chars, start, pos - start);
+                    } else {
+                        token = sb.append(chars, start, pos - start).toString();
+                    }
+                    ++pos;
+                    return token;
+                }
+                ++pos;
+            }
+
+            // Token continues in the next chunk.
+            if (sb == null) {
+                sb = spillBuilder();
+            }
+            sb.append(chars, start, pos - start);
+        }
+    }
+
+    /**
+     * Consumes a decimal integer between {@code min} and {@code max} up to {@code stop} (inclusive).
+     * The number is parsed in place unless it crosses a chunk boundary.
+     */
+    public long readLong(char stop, long min, long max) {
+        long value = readLong(stop, stop, min, max);
+        ++pos;
+        return value;
+    }
+
+    /**
+     * Consumes a decimal integer between {@code min} and {@code max} that ends before
+     * {@code separator} or {@code stop}. The character after the number is not consumed.
+     */
+    public long readLong(char separator, char stop, long min, long max) {
+        int end = find(separator, stop);
+        if (end < 0) {
+            char[] token = readBefore(separator, stop);
+            return Numbers.parseLong(token, 0, token.length, min, max);
+        }
+
+        long value = Numbers.parseLong(chars, pos, end, min, max);
+        pos = end;
+        return value;
+    }
+
+    public int readInt(char stop) {
+        return (int) readLong(stop, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Consumes a floating point number up to {@code stop} (inclusive).
+     */
+    public double readDouble(char stop) {
+        double value = readDouble(stop, stop);
+        ++pos;
+        return value;
+    }
+
+    /**
+     * Consumes a floating point number that ends before {@code separator} or {@code stop}.
+     * The character after the number is not consumed.
+     */
+    public double readDouble(char separator, char stop) {
+        int end = find(separator, stop);
+        if (end < 0) {
+            char[] token = readBefore(separator, stop);
+            return Numbers.parseDouble(token, 0, token.length);
+        }
+
+        double value = Numbers.parseDouble(chars, pos, end);
+        pos = end;
+        return value;
+    }
+
+    public float readFloat(char stop) {
+        float value = readFloat(stop, stop);
+        ++pos;
+        return value;
+    }
+
+    public float readFloat(char separator, char stop) {
+        int end = find(separator, stop);
+        if (end < 0) {
+            char[] token = readBefore(separator, stop);
+            return Numbers.parseFloat(token, 0, token.length);
+        }
+
+        float value = Numbers.parseFloat(chars, pos, end);
+        pos = end;
+        return value;
+    }
+
+    /**
+     * Consumes characters up to {@code stop} (inclusive) without keeping them.
+     */
+    public void skipUntil(char stop) {
+        while (true) {
+            if (pos == limit && !fill()) {
+                throw new ExportMapperException("Unexpected end of input");
+            }
+
+            while (pos < limit) {
+                if (chars[pos++] == stop) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Skips one value: a quoted string, an object or a collection.
+     */
+    public void skipValue() {
+        char first = next();
+        if (first == '\"') {
+            skipUntil('\"');
+            return;
+        }
+
+        if (first != '{' && first != '[') {
+            throw new ExportMapperException("Incorrect string format: unexpected " + first);
+        }
+        if (index != null) {
+            pos = index.closing(pos - 1) + 1;
+            return;
+        }
+
+        // Strings can't contain brackets and quotes, so depth counting is enough.
+        int depth = 1;
+        boolean quoted = false;
+        while (depth != 0) {
+            char c = next();
+            if (c == '\"') {
+                quoted = !quoted;
+            } else if (!quoted) {
+                if (c == '{' || c == '[') {
+                    ++depth;
+                } else if (c == '}' || c == ']') {
+                    --depth;
+                }
+            }
+        }
+    }
+
+    public void skipWhitespace() {
+        int c;
+        while ((c = peek()) != -1 && Character.isWhitespace(c)) {
+            ++pos;
+        }
+    }
+
+    /**
+     * Returns index of the nearest {@code separator} or {@code stop} in the current chunk,
+     * or -1 if the chunk ends before them.
+     */
+    private int find(char separator, char stop) {
+        if (pos == limit && !fill()) {
+            throw new ExportMapperException("Unexpected end of input");
+        }
+        for (int i = pos; i < limit; ++i) {
+            char c = chars[i];
+            if (c == separator || c == stop) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Consumes characters before the nearest {@code separator} or {@code stop}, which stays
+     * in the current chunk, and returns them.
+     */
+    private char[] readBefore(char separator, char stop) {
+        StringBuilder sb = spillBuilder();
+        int c;
+        while ((c = peek()) != separator && c != stop) {
+            if (c == -1) {
+                throw new ExportMapperException("Unexpected end of input");
+            }
+            sb.append((char) c);
+            ++pos;
+        }
+
+        char[] token = new char[sb.length()];
+        sb.getChars(0, token.length, token, 0);
+        return token;
+    }
+
+    private StringBuilder spillBuilder() {
+        if (spill == null) {
+            spill = new StringBuilder();
+        }
+        spill.setLength(0);
+        return spill;
+    }
+
+    private boolean fill() {
+        if (source == null) {
+            return false;
+        }
+
+        try {
+            int read;
+            do {
+                read = source.read(chars, 0, chars.length);
+            } while (read == 0);
+
+            if (read < 0) {
+                return false;
+            }
+            pos = 0;
+            limit = read;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package mapper.utils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Writing and parsing of {@link LocalDate}, {@link LocalTime} and {@link LocalDateTime}
+ * in their ISO representation, the one produced by {@code toString()}.
+ * <p>
+ * Digits are written directly into {@link OutputBuffer}, without intermediate Strings.
+ * Parsing handles the exact {@code toString()} layouts by hand and falls back to
+ * the {@code parse} methods of java.time for anything else.
+ */
+public final class IsoDateTime {
+    private IsoDateTime() {
+    }
+
+    /**
+     * Appends {@code value}, which is a {@link LocalDate}, {@link LocalTime} or {@link LocalDateTime}.
+     */
+    public static void write(Object value, OutputBuffer out) {
+        if (value instanceof LocalDate date) {
+            writeDate(date, out);
+        } else if (value instanceof LocalTime time) {
+            writeTime(time, out);
+        } else {
+            LocalDateTime dateTime = (LocalDateTime) value;
+            writeDate(dateTime.toLocalDate(), out);
+            out.append('T');
+            writeTime(dateTime.toLocalTime(), out);
+        }
+    }
+
+    /**
+     * Same as {@link LocalDate#toString()}.
+     */
+    public static void writeDate(LocalDate date, OutputBuffer out) {
+        int year = date.getYear();
+        if (year < 0) {
+            out.append('-');
+            appendDigits(-year, 4, out);
+        } else {
+            if (year > 9999) {
+                out.append('+');
+            }
+            appendDigits(year, 4, out);
+        }
+        out.append('-');
+        appendDigits(date.getMonthValue(), 2, out);
+        out.append('-');
+        appendDigits(date.getDayOfMonth(), 2, out);
+    }
+
+    /**
+     * Same as {@link LocalTime#toString()}.
+     */
+    public static void writeTime(LocalTime time, OutputBuffer out) {
+        appendDigits(time.getHour(), 2, out);
+        out.append(':');
+        appendDigits(time.getMinute(), 2, out);
+
+        int second = time.getSecond();
+        int nano = time.getNano();
+        if (second > 0 || nano > 0) {
+            out.append(':');
+            appendDigits(second, 2, out);
+            if (nano > 0) {
+                out.append('.');
+                if (nano % 1000_000 == 0) {
+                    appendDigits(nano / 1000_000, 3, out);
+                } else if (nano % 1000 == 0) {
+                    appendDigits(nano / 1000, 6, out);
+                } else {
+                    appendDigits(nano, 9, out);
+                }
+            }
+        }
+    }
+
+    public static LocalDate parseDate(String value) {
+        if (value.length() == 10 && value.charAt(4) == '-' && value.charAt(7) == '-') {
+            int year = digits(value, 0, 4);
+            int month = digits(value, 5, 7);
+            int day = digits(value, 8, 10);
+            if ((year | month | day) >= 0) {
+                return LocalDate.of(year, month, day);
+            }
+        }
+        return LocalDate.parse(value);
+    }
+
+    public static LocalTime parseTime(String value) {
+        LocalTime time = parseTime(value, 0);
+        return time != null ? time : LocalTime.parse(value);
+    }
+
+    public static LocalDateTime parseDateTime(String value) {
+        if (value.length() >= 16 && value.charAt(10) == 'T' && value.charAt(4) == '-' && value.charAt(7) == '-') {
+            int year = digits(value, 0, 4);
+            int month = digits(value, 5, 7);
+            int day = digits(value, 8, 10);
+            LocalTime time = parseTime(value, 11);
+            if ((year | month | day) >= 0 && time != null) {
+                return LocalDateTime.of(LocalDate.of(year, month, day), time);
+            }
+        }
+        return LocalDateTime.parse(value);
+    }
+
+    /**
+     * Parses {@code HH:mm[:ss[.fraction]]} from {@code start} to the end of {@code value},
+     * or returns null if the text has another layout.
+     */
+    private static LocalTime parseTime(String value, int start) {
+        int length = value.length() - start;
+        if (length < 5 || value.charAt(start + 2) != ':') {
+            return null;
+        }
+
+        int hour = digits(value, start, start + 2);
+        int minute = digits(value, start + 3, start + 5);
+        int second = 0;
+        int nano = 0;
+        if (length > 5) {
+            if (length < 8 || value.charAt(start + 5) != ':') {
+                return null;
+            }
+            second = digits(value, start + 6, start + 8);
+            if (length > 8) {
+                int fraction = length - 9;
+                if (value.charAt(start + 8) != '.' || fraction < 1 || fraction > 9) {
+                    return null;
+                }
+                nano = digits(value, start + 9, start + length);
+                for (int i = fraction; i < 9 && nano >= 0; ++i) {
+                    nano *= 10;
+                }
+            }
+        }
+
+        if ((hour | minute | second | nano) < 0) {
+            return null;
+        }
+        return LocalTime.of(hour, minute, second, nano);
+    }
+
+    /**
+     * Returns the number written with ASCII digits from {@code start} to {@code end},
+     * or -1 if there is another character.
+     */
+    private static int digits(String value, int start, int end) {
+        int result = 0;
+        for (int i = start; i < end; ++i) {
+            int digit = value.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            result = result * 10 + digit;
+        }
+        return result;
+    }
+
+    /**
+     * Appends non-negative {@code value} padded with zeros to at least {@code width} digits.
+     */
+    private static void appendDigits(int value, int width, OutputBuffer out) {
+        int length = 1;
+        int divisor = 1;
+        while (divisor <= value / 10) {
+            divisor *= 10;
+            ++length;
+        }
+
+        for (int i = length; i < width; ++i) {
+            out.append('0');
+        }
+        for (; divisor > 0; divisor /= 10) {
+            out.append((char) ('0' + value / divisor % 10));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package mapper.utils;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reader over a memory-mapped file in {@link StandardCharsets#UTF_8} encoding.
+ * <p>
+ * The file is mapped window by window and decoded only as far as the caller reads,
+ * so the file content is never copied to the heap as a whole. Files that fit in one chunk
+ * are read instead, mapping them costs more. Bytes are decoded from
+ * a heap chunk they are copied to, since decoding straight from the mapped buffer takes
+ * the decoder's per-byte path.
+ * The channel is not closed by this reader.
+ */
+public class MappedFileReader extends Reader {
+    private static final long WINDOW_SIZE = 1L << 26;
+    private static final int CHUNK_SIZE = 8192;
+
+    private final FileChannel channel;
+    private final long size;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    // Bytes copied from the window and not decoded yet, ready to be read.
+    private final ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE).flip();
+
+    private MappedByteBuffer window;
+    private long position;
+    private boolean finished;
+
+    public MappedFileReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        size = channel.size();
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (finished) {
+            return -1;
+        }
+
+        CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+        while (out.position() == off) {
+            boolean last = fillChunk();
+            CoderResult result = decoder.decode(chunk, out, last);
+            if (result.isOverflow()) {
+                break;
+            } else if (last) {
+                decoder.flush(out);
+                finished = true;
+                break;
+            }
+        }
+
+        int read = out.position() - off;
+        return read == 0 && finished ? -1 : read;
+    }
+
+    /**
+     * Appends bytes of the file to the undecoded ones in the chunk, mapping the next window
+     * when needed, and returns whether the chunk reaches the end of the file.
+     */
+    private boolean fillChunk() throws IOException {
+        chunk.compact();
+        while (chunk.hasRemaining() && position < size) {
+            if (size <= CHUNK_SIZE) {
+                // Mapping costs more than reading a file that fits in the chunk.
+                int read = channel.read(chunk, position);
+                if (read < 0) {
+                    throw new EOFException("File is shorter than " + size + " bytes");
+                }
+                position += read;
+                continue;
+            }
+
+            if (window == null || !window.hasRemaining()) {
+                window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, size - position));
+            }
+
+            int count = Math.min(chunk.remaining(), window.remaining());
+            window.get(chunk.array(), chunk.position(), count);
+            chunk.position(chunk.position() + count);
+            position += count;
+        }
+        chunk.flip();
+        return position == size;
+    }
+
+    @Override
+    public void close() {
+        window = null;
+    }
+}
@@ -0,0 +1,163 @@
+package mapper.utils;
+
+import mapper.exceptions.ExportMapperException;
+
+/**
+ * Parsing of decimal numbers from character ranges, without creating Strings.
+ * <p>
+ * Integers are parsed exactly with range checks. Floating point numbers with a short
+ * mantissa and a small decimal exponent are computed with a single correctly rounded
+ * multiplication or division of exactly representable operands, which gives the same
+ * result as {@link Double#parseDouble(String)}; other forms are passed to it.
+ */
+public final class Numbers {
+    // Largest powers of ten that are exact in double and float.
+    private static final int MAX_DOUBLE_EXPONENT = 22;
+    private static final int MAX_FLOAT_EXPONENT = 10;
+    private static final long MAX_DOUBLE_MANTISSA = 1L << 53;
+    private static final long MAX_FLOAT_MANTISSA = 1L << 24;
+
+    private static final double[] DOUBLE_POWERS = new double[MAX_DOUBLE_EXPONENT + 1];
+    private static final float[] FLOAT_POWERS = new float[MAX_FLOAT_EXPONENT + 1];
+
+    static {
+        double power = 1;
+        for (int i = 0; i <= MAX_DOUBLE_EXPONENT; ++i) {
+            DOUBLE_POWERS[i] = power;
+            power *= 10;
+        }
+        for (int i = 0; i <= MAX_FLOAT_EXPONENT; ++i) {
+            FLOAT_POWERS[i] = (float) DOUBLE_POWERS[i];
+        }
+    }
+
+    private Numbers() {
+    }
+
+    /**
+     * Parses an optionally signed decimal integer between {@code min} and {@code max}.
+     *
+     * @throws ExportMapperException if the range is not such a number
+     */
+    public static long parseLong(char[] chars, int start, int end, long min, long max) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            negative = chars[i] == '-';
+            ++i;
+        }
+        if (i == end) {
+            throw incorrect(chars, start, end);
+        }
+
+        // Accumulated negatively, so that Long.MIN_VALUE does not overflow.
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long multiplyLimit = limit / 10;
+        long result = 0;
+        for (; i < end; ++i) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9 || result < multiplyLimit) {
+                throw incorrect(chars, start, end);
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw incorrect(chars, start, end);
+            }
+            result -= digit;
+        }
+
+        long value = negative ? result : -result;
+        if (value < min || value > max) {
+            throw incorrect(chars, start, end);
+        }
+        return value;
+    }
+
+    public static double parseDouble(char[] chars, int start, int end) {
+        long scanned = scan(chars, start, end, MAX_DOUBLE_MANTISSA, MAX_DOUBLE_EXPONENT);
+        if (scanned < 0) {
+            return Double.parseDouble(new String(chars, start, end - start));
+        }
+
+        double mantissa = scanned >>> 8;
+        int exponent = (int) (scanned & 0xFF) - 128;
+        double value = exponent >= 0 ? mantissa * DOUBLE_POWERS[exponent] : mantissa / DOUBLE_POWERS[-exponent];
+        return chars[start] == '-' ? -value : value;
+    }
+
+    public static float parseFloat(char[] chars, int start, int end) {
+        long scanned = scan(chars, start, end, MAX_FLOAT_MANTISSA, MAX_FLOAT_EXPONENT);
+        if (scanned < 0) {
+            return Float.parseFloat(new String(chars, start, end - start));
+        }
+
+        float mantissa = scanned >>> 8;
+        int exponent = (int) (scanned & 0xFF) - 128;
+        float value = exponent >= 0 ? mantissa * FLOAT_POWERS[exponent] : mantissa / FLOAT_POWERS[-exponent];
+        return chars[start] == '-' ? -value : value;
+    }
+
+    /**
+     * Scans {@code [sign]digits[.digits][(e|E)[sign]digits]} into a decimal mantissa and exponent.
+     * Returns {@code mantissa << 8 | (exponent + 128)}, or -1 if the range has another form
+     * or the mantissa or the exponent are too large for the exact computation.
+     */
+    private static long scan(char[] chars, int start, int end, long maxMantissa, int maxExponent) {
+        int i = start;
+        if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+            ++i;
+        }
+
+        long mantissa = 0;
+        int exponent = 0;
+        int digits = 0;
+        for (; i < end && chars[i] >= '0' && chars[i] <= '9'; ++i, ++digits) {
+            mantissa = mantissa * 10 + (chars[i] - '0');
+            if (mantissa >= maxMantissa) {
+                return -1;
+            }
+        }
+        if (i < end && chars[i] == '.') {
+            for (++i; i < end && chars[i] >= '0' && chars[i] <= '9'; ++i, ++digits) {
+                mantissa = mantissa * 10 + (chars[i] - '0');
+                --exponent;
+                if (mantissa >= maxMantissa) {
+                    return -1;
+                }
+            }
+        }
+        if (digits == 0) {
+            return -1;
+        }
+
+        if (i < end && (chars[i] == 'e' || chars[i] == 'E')) {
+            ++i;
+            boolean negative = false;
+            if (i < end && (chars[i] == '-' || chars[i] == '+')) {
+                negative = chars[i] == '-';
+                ++i;
+            }
+            int power = 0;
+            int powerDigits = 0;
+            for (; i < end && chars[i] >= '0' && chars[i] <= '9'; ++i, ++powerDigits) {
+                power = power * 10 + (chars[i] - '0');
+                if (powerDigits == 3) {
+                    return -1;
+                }
+            }
+            if (powerDigits == 0) {
+                return -1;
+            }
+            exponent += negative ? -power : power;
+        }
+
+        if (i != end || exponent < -maxExponent || exponent > maxExponent) {
+            return -1;
+        }
+        return mantissa << 8 | (exponent + 128);
+    }
+
+    private static ExportMapperException incorrect(char[] chars, int start, int end) {
+        return new ExportMapperException("Incorrect number " + new String(chars, start, end - start));
+    }
+}
@@ -0,0 +1,232 @@
+package mapper.utils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Character buffer the serialized representation is written to.
+ * <p>
+ * Without a sink the buffer grows and its content is taken with {@link #toString()}.
+ * With an {@link OutputStream} sink characters are encoded to
+ * {@link java.nio.charset.StandardCharsets#UTF_8} and flushed every time the buffer fills up,
+ * so memory usage does not depend on the size of the document.
+ * <p>
+ * I/O errors of the sink are thrown as {@link UncheckedIOException}.
+ */
+public class OutputBuffer {
+    private static final int DEFAULT_CAPACITY = 8192;
+
+    private final OutputStream sink;
+    private char[] chars;
+    private byte[] bytes;
+    private int pos;
+
+    public OutputBuffer() {
+        this(null);
+    }
+
+    public OutputBuffer(OutputStream sink) {
+        this.sink = sink;
+        chars = new char[DEFAULT_CAPACITY];
+    }
+
+    public OutputBuffer append(char c) {
+        if (pos == chars.length) {
+            makeRoom(1);
+        }
+        chars[pos++] = c;
+        return this;
+    }
+
+    public OutputBuffer append(String str) {
+        return append(str, 0, str.length());
+    }
+
+    /**
+     * Appends characters of {@code str} from {@code start} (inclusive) to {@code end} (exclusive).
+     */
+    public OutputBuffer append(String str, int start, int end) {
+        int length = end - start;
+        if (length > chars.length - pos) {
+            if (sink == null || length <= chars.length) {
+                makeRoom(length);
+            } else {
+                // Strings larger than the buffer go to the sink piece by piece.
+                for (int from = start; from < end; ) {
+                    if (pos == chars.length) {
+                        makeRoom(1);
+                    }
+                    int count = Math.min(end - from, chars.length - pos);
+                    str.getChars(from, from + count, chars, pos);
+                    pos += count;
+                    from += count;
+                }
+                return this;
+            }
+        }
+        str.getChars(start, end, chars, pos);
+        pos += length;
+        return this;
+    }
+
+    /**
+     * Appends decimal digits of {@code value}, same as {@link Long#toString(long)}.
+     */
+    public OutputBuffer appendLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            return append("-9223372036854775808");
+        }
+        if (chars.length - pos < 20) {
+            makeRoom(20);
+        }
+
+        if (value < 0) {
+            chars[pos++] = '-';
+            value = -value;
+        }
+        int length = 1;
+        for (long bound = 10; length < 19 && value >= bound; bound *= 10) {
+            ++length;
+        }
+
+        int end = pos + length;
+        for (int i = end - 1; i >= pos; --i) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        pos = end;
+        return this;
+    }
+
+    /**
+     * Appends {@code value} the same way as {@link Double#toString(double)}. Integral values
+     * below 10^7 are written as digits and ".0" without creating a String.
+     */
+    public OutputBuffer appendDouble(double value) {
+        if (Math.abs(value) < 1e7 && value == (long) value && (value != 0 || 1 / value > 0)) {
+            return appendLong((long) value).append('.').append('0');
+        }
+        return append(Double.toString(value));
+    }
+
+    /**
+     * Appends {@code value} the same way as {@link Float#toString(float)}. Integral values
+     * below 10^7 are written as digits and ".0" without creating a String.
+     */
+    public OutputBuffer appendFloat(float value) {
+        if (Math.abs(value) < 1e7f && value == (long) value && (value != 0 || 1 / value > 0)) {
+            return appendLong((long) value).append('.').append('0');
+        }
+        return append(Float.toString(value));
+    }
+
+    /**
+     * Appends characters held by {@code buffer}.
+     */
+    public OutputBuffer append(OutputBuffer buffer) {
+        return append(buffer.chars, 0, buffer.pos);
+    }
+
+    public OutputBuffer append(char[] str, int offset, int length) {
+        while (length > 0) {
+            if (pos == chars.length) {
+                makeRoom(sink == null ? length : 1);
+            }
+            int count = Math.min(length, chars.length - pos);
+            System.arraycopy(str, offset, chars, pos, count);
+            pos += count;
+            offset += count;
+            length -= count;
+        }
+        return this;
+    }
+
+    /**
+     * Number of characters written to the buffer and not flushed yet.
+     */
+    public int length() {
+        return pos;
+    }
+
+    /**
+     * Encodes the buffered characters to the sink and flushes it.
+     */
+    public void flush() {
+        if (sink == null) {
+            return;
+        }
+
+        drain(true);
+        try {
+            sink.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, pos);
+    }
+
+    private void makeRoom(int required) {
+        if (sink != null) {
+            drain(false);
+        }
+
+        if (chars.length - pos < required) {
+            char[] grown = new char[Math.max(chars.length * 2, pos + required)];
+            System.arraycopy(chars, 0, grown, 0, pos);
+            chars = grown;
+        }
+    }
+
+    private void drain(boolean all) {
+        int end = pos;
+        // Keep a trailing high surrogate until its pair arrives.
+        if (!all && end > 0 && Character.isHighSurrogate(chars[end - 1])) {
+            --end;
+        }
+
+        if (bytes == null || bytes.length < end * 3) {
+            bytes = new byte[chars.length * 3];
+        }
+
+        int count = 0;
+        for (int i = 0; i < end; ++i) {
+            char c = chars[i];
+            if (c < 0x80) {
+                bytes[count++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[count++] = (byte) (0xC0 | (c >> 6));
+                bytes[count++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end
+                    && Character.isLowSurrogate(chars[i + 1])) {
+                int cp = Character.toCodePoint(c, chars[++i]);
+                bytes[count++] = (byte) (0xF0 | (cp >> 18));
+                bytes[count++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                bytes[count++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                bytes[count++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                bytes[count++] = (byte) '?';
+            } else {
+                bytes[count++] = (byte) (0xE0 | (c >> 12));
+                bytes[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[count++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        try {
+            sink.write(bytes, 0, count);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        int left = pos - end;
+        if (left > 0) {
+            System.arraycopy(chars, end, chars, 0, left);
+        }
+        pos = left;
+    }
+}
@@ -0,0 +1,160 @@
+package mapper.utils;
+
+import mapper.exceptions.ExportMapperException;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Text representation of primitive arrays as one homogeneous block, the content of a quoted value:
+ * numbers and char codes separated by commas, {@code boolean[]} as a run of {@code 0} and {@code 1},
+ * {@code byte[]} as Base64. None of them contains quotes or brackets, so no escaping is needed.
+ */
+public final class PrimitiveArrays {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private PrimitiveArrays() {
+    }
+
+    /**
+     * Returns whether {@code type} is an array of primitives.
+     */
+    public static boolean isPrimitiveArray(Class<?> type) {
+        return type.isArray() && type.getComponentType().isPrimitive();
+    }
+
+    public static void write(Object array, OutputBuffer out) {
+        if (array instanceof int[] values) {
+            for (int i = 0; i < values.length; ++i) {
+                separate(out, i).appendLong(values[i]);
+            }
+        } else if (array instanceof long[] values) {
+            for (int i = 0; i < values.length; ++i) {
+                separate(out, i).appendLong(values[i]);
+            }
+        } else if (array instanceof double[] values) {
+            for (int i = 0; i < values.length; ++i) {
+                separate(out, i).appendDouble(values[i]);
+            }
+        } else if (array instanceof float[] values) {
+            for (int i = 0; i < values.length; ++i) {
+                separate(out, i).appendFloat(values[i]);
+            }
+        } else if (array instanceof short[] values) {
+            for (int i = 0; i < values.length; ++i) {
+                separate(out, i).appendLong(values[i]);
+            }
+        } else if (array instanceof char[] values) {
+            for (int i = 0; i < values.length; ++i) {
+                separate(out, i).appendLong(values[i]);
+            }
+        } else if (array instanceof boolean[] values) {
+            for (boolean value : values) {
+                out.append(value ? '1' : '0');
+            }
+        } else {
+            out.append(Base64.getEncoder().encodeToString((byte[]) array));
+        }
+    }
+
+    /**
+     * Reads an array of {@code type} written by {@link #write(Object, OutputBuffer)}
+     * up to {@code stop} (inclusive).
+     */
+    public static Object read(Class<?> type, InputBuffer in, char stop) {
+        Class<?> component = type.getComponentType();
+        if (component == boolean.class) {
+            return readBooleans(in.readUntil(stop));
+        } else if (component == byte.class) {
+            try {
+                return Base64.getDecoder().decode(in.readUntil(stop));
+            } catch (IllegalArgumentException e) {
+                throw new ExportMapperException("Incorrect byte array: " + e.getMessage());
+            }
+        }
+
+        if (in.peek() == stop) {
+            in.next();
+            return Array.newInstance(component, 0);
+        }
+
+        if (component == int.class) {
+            int[] values = new int[INITIAL_CAPACITY];
+            int count = 0;
+            do {
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count * 2);
+                }
+                values[count++] = (int) in.readLong(',', stop, Integer.MIN_VALUE, Integer.MAX_VALUE);
+            } while (in.next() == ',');
+            return Arrays.copyOf(values, count);
+        } else if (component == long.class) {
+            long[] values = new long[INITIAL_CAPACITY];
+            int count = 0;
+            do {
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count * 2);
+                }
+                values[count++] = in.readLong(',', stop, Long.MIN_VALUE, Long.MAX_VALUE);
+            } while (in.next() == ',');
+            return Arrays.copyOf(values, count);
+        } else if (component == double.class) {
+            double[] values = new double[INITIAL_CAPACITY];
+            int count = 0;
+            do {
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count * 2);
+                }
+                values[count++] = in.readDouble(',', stop);
+            } while (in.next() == ',');
+            return Arrays.copyOf(values, count);
+        } else if (component == float.class) {
+            float[] values = new float[INITIAL_CAPACITY];
+            int count = 0;
+            do {
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count * 2);
+                }
+                values[count++] = in.readFloat(',', stop);
+            } while (in.next() == ',');
+            return Arrays.copyOf(values, count);
+        } else if (component == short.class) {
+            short[] values = new short[INITIAL_CAPACITY];
+            int count = 0;
+            do {
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count * 2);
+                }
+                values[count++] = (short) in.readLong(',', stop, Short.MIN_VALUE, Short.MAX_VALUE);
+            } while (in.next() == ',');
+            return Arrays.copyOf(values, count);
+        } else {
+            char[] values = new char[INITIAL_CAPACITY];
+            int count = 0;
+            do {
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count * 2);
+                }
+                values[count++] = (char) in.readLong(',', stop, Character.MIN_VALUE, Character.MAX_VALUE);
+            } while (in.next() == ',');
+            return Arrays.copyOf(values, count);
+        }
+    }
+
+    private static boolean[] readBooleans(String value) {
+        boolean[] values = new boolean[value.length()];
+        for (int i = 0; i < values.length; ++i) {
+            char c = value.charAt(i);
+            if (c != '0' && c != '1') {
+                throw new ExportMapperException("Incorrect boolean array: unexpected " + c);
+            }
+            values[i] = c == '1';
+        }
+        return values;
+    }
+
+    private static OutputBuffer separate(OutputBuffer out, int index) {
+        return index == 0 ? out : out.append(',');
+    }
+}
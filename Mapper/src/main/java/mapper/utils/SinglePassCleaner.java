@@ -0,0 +1,129 @@
+package mapper.utils;
+
+import mapper.exceptions.ExportMapperException;
+import mapper.interfaces.Cleaner;
+
+/**
+ * {@link Cleaner} producing the same output as {@link StringCleaner}, but checking and
+ * escaping a String in one pass over its characters. Strings without characters to
+ * escape are returned or appended as they are, without copying.
+ */
+public class SinglePassCleaner implements Cleaner {
+    private static final char FIRST_BANNED = '\uFFF0';
+    private static final char LAST_BANNED = '\uFFF5';
+
+    @Override
+    public String cleanString(String str) {
+        int length = str.length();
+        int i = firstToClean(str);
+        if (i == length) {
+            return str;
+        }
+
+        // Escaping never makes a String longer.
+        char[] result = new char[length];
+        str.getChars(0, i, result, 0);
+        int count = i;
+        for (; i < length; ++i) {
+            char c = str.charAt(i);
+            char escaped = escape(str, i, c);
+            if (escaped == 0) {
+                result[count++] = c;
+            } else {
+                result[count++] = escaped;
+                if (c == 'n') {
+                    i += 3;
+                }
+            }
+        }
+        return new String(result, 0, count);
+    }
+
+    @Override
+    public void cleanString(String str, OutputBuffer out) {
+        int length = str.length();
+        int start = 0;
+        for (int i = firstToClean(str); i < length; ++i) {
+            char c = str.charAt(i);
+            char escaped = escape(str, i, c);
+            if (escaped != 0) {
+                out.append(str, start, i).append(escaped);
+                if (c == 'n') {
+                    i += 3;
+                }
+                start = i + 1;
+            }
+        }
+        out.append(str, start, length);
+    }
+
+    @Override
+    public String recoverString(String str) {
+        int length = str.length();
+        int i = 0;
+        while (i < length && !isEscaped(str.charAt(i))) {
+            ++i;
+        }
+        if (i == length) {
+            return str;
+        }
+
+        char[] result = str.toCharArray();
+        for (; i < length; ++i) {
+            char c = result[i];
+            if (isEscaped(c)) {
+                result[i] = recover(c);
+            }
+        }
+        return new String(result);
+    }
+
+    /**
+     * Returns index of the first character that has to be escaped, or the length of {@code str}.
+     */
+    private static int firstToClean(String str) {
+        int length = str.length();
+        for (int i = 0; i < length; ++i) {
+            if (escape(str, i, str.charAt(i)) != 0) {
+                return i;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Returns replacement of character {@code c} at {@code i}, or 0 if it is kept.
+     * Replacement of 'n' stands for the whole "null".
+     */
+    private static char escape(String str, int i, char c) {
+        return switch (c) {
+            case '\"' -> '\uFFF0';
+            case '{' -> '\uFFF1';
+            case '}' -> '\uFFF2';
+            case '[' -> '\uFFF3';
+            case ']' -> '\uFFF4';
+            // StringCleaner replaces "null" with the escape of ']', so it is recovered as "]".
+            case 'n' -> str.startsWith("ull", i + 1) ? '\uFFF4' : 0;
+            default -> {
+                if (c >= FIRST_BANNED && c <= LAST_BANNED) {
+                    throw new ExportMapperException("String has incorrect symbol " + c);
+                }
+                yield 0;
+            }
+        };
+    }
+
+    private static boolean isEscaped(char c) {
+        return c >= '\uFFF0' && c <= '\uFFF4';
+    }
+
+    private static char recover(char c) {
+        return switch (c) {
+            case '\uFFF0' -> '\"';
+            case '\uFFF1' -> '{';
+            case '\uFFF2' -> '}';
+            case '\uFFF3' -> '[';
+            default -> ']';
+        };
+    }
+}
@@ -0,0 +1,80 @@
+package mapper.utils;
+
+import mapper.exceptions.ExportMapperException;
+
+import java.util.Arrays;
+
+/**
+ * Positions of matching brackets of an input held in memory, found in one pass over it.
+ * <p>
+ * Strings can't contain brackets and quotes, so quotes only switch the quoted state and
+ * every bracket outside quotes is structural. With the index a collection or an object
+ * is skipped in one lookup instead of a scan of everything nested in it, which keeps
+ * passes over nested collections linear in the size of the input.
+ */
+public final class StructuralIndex {
+    // Positions of '{' and '[' in ascending order and of the brackets closing them,
+    // -1 if there is none.
+    private final int[] opens;
+    private final int[] closes;
+    private final int count;
+
+    private StructuralIndex(int[] opens, int[] closes, int count) {
+        this.opens = opens;
+        this.closes = closes;
+        this.count = count;
+    }
+
+    /**
+     * Indexes characters of {@code chars} from {@code start} (inclusive) to {@code end} (exclusive).
+     */
+    public static StructuralIndex of(char[] chars, int start, int end) {
+        int[] opens = new int[16];
+        int[] closes = new int[16];
+        int count = 0;
+        // Indices of the opening brackets not closed yet.
+        int[] stack = new int[16];
+        int depth = 0;
+
+        boolean quoted = false;
+        for (int i = start; i < end; ++i) {
+            char c = chars[i];
+            if (c == '\"') {
+                quoted = !quoted;
+            } else if (quoted) {
+                continue;
+            } else if (c == '{' || c == '[') {
+                if (count == opens.length) {
+                    opens = Arrays.copyOf(opens, count * 2);
+                    closes = Arrays.copyOf(closes, count * 2);
+                }
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                }
+                opens[count] = i;
+                closes[count] = -1;
+                stack[depth++] = count++;
+            } else if ((c == '}' || c == ']') && depth > 0) {
+                closes[stack[--depth]] = i;
+            }
+        }
+
+        return new StructuralIndex(opens, closes, count);
+    }
+
+    /**
+     * Returns the position of the bracket closing the one at {@code open}.
+     *
+     * @throws ExportMapperException if there is no bracket at {@code open} or it is not closed
+     */
+    public int closing(int open) {
+        int i = Arrays.binarySearch(opens, 0, count, open);
+        if (i < 0) {
+            throw new ExportMapperException("Incorrect string format: no bracket at " + open);
+        }
+        if (closes[i] < 0) {
+            throw new ExportMapperException("Unexpected end of input");
+        }
+        return closes[i];
+    }
+}
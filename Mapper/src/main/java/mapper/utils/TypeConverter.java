@@ -7,6 +7,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class TypeConverter {
@@ -59,6 +60,10 @@ public class TypeConverter {
         return clazz == Set.class || clazz == List.class;
     }
 
+    public boolean isMap(Class<?> clazz) {
+        return Map.class.isAssignableFrom(clazz);
+    }
+
     public boolean isDateTime(Class<?> clazz) {
         return clazz == LocalDate.class || clazz == LocalTime.class ||
                 clazz == LocalDateTime.class;
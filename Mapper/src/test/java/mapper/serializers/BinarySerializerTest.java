@@ -0,0 +1,276 @@
+package mapper.serializers;
+
+import mapper.annotations.Exported;
+import mapper.annotations.PropertyName;
+import mapper.enums.NullHandling;
+import mapper.enums.UnknownPropertiesPolicy;
+import mapper.exceptions.ExportMapperException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinarySerializerTest {
+    private BinarySerializer binary;
+    private Serializer text;
+
+    @BeforeEach
+    void init() {
+        binary = new BinarySerializer();
+        text = new Serializer();
+    }
+
+    /**
+     * Checks that the object survives the binary round trip by comparing text representations.
+     */
+    private <T> void assertRoundTrip(Class<T> clazz, T obj) {
+        String expected = text.writeToString(obj);
+        assertEquals(expected, text.writeToString(binary.readFromBytes(clazz, binary.writeToBytes(obj))));
+        assertEquals(expected, text.writeToString(binary.readFromString(clazz, binary.writeToString(obj))));
+    }
+
+    @Test
+    void testPrimitives() {
+        AllPrimitives ap = new AllPrimitives();
+        ap.setValues(true, (byte) -5, (short) 300, 'ё', Integer.MIN_VALUE, Long.MAX_VALUE, 1.5f, -0.25);
+        assertRoundTrip(AllPrimitives.class, ap);
+
+        OnlyPrimitives op = new OnlyPrimitives();
+        op.setInteger(-123);
+        op.setNum(4543);
+        op.setStr("строка 😀 {\"null\"}");
+        assertRoundTrip(OnlyPrimitives.class, op);
+
+        PrimitiveArraysClass arrays = new PrimitiveArraysClass();
+        arrays.fill();
+        arrays.assertSame(binary.readFromBytes(PrimitiveArraysClass.class, binary.writeToBytes(arrays)));
+        assertRoundTrip(PrimitiveArraysClass.class, arrays);
+
+        MapsClass maps = new MapsClass();
+        maps.fill();
+        assertRoundTrip(MapsClass.class, maps);
+
+        Point point = new Point(5, -0.5, 0, LocalDate.of(1999, 12, 31),
+                new ArrayList<>(List.of(new Point(1, 2, 0, null, null, null))), new HashMap<>(Map.of("k", 3)));
+        assertEquals(point, binary.readFromBytes(Point.class, binary.writeToBytes(point)));
+        assertRoundTrip(Point.class, point);
+
+        EventLog log = new EventLog();
+        ClickEvent click = new ClickEvent();
+        click.source = "touch";
+        click.x = -1;
+        log.last = click;
+        log.events = new ArrayList<>(List.of(new KeyEvent(), click));
+        assertEquals(ClickEvent.class, binary.readFromBytes(EventLog.class, binary.writeToBytes(log)).last.getClass());
+        assertRoundTrip(EventLog.class, log);
+    }
+
+    @Test
+    void testObjectsAndCollections() {
+        OnlyPrimitives op = new OnlyPrimitives();
+        op.setNum(7);
+        op.setArInAr(new Arrays());
+
+        Arrays ar = new Arrays();
+        ar.setOp(op);
+        ar.setList(new ArrayList<>(List.of(1, 2, 3)));
+        ar.setSet(new TreeSet<>(List.of("fsd", "f2222")));
+        ar.setInnerList(new LinkedList<>(List.of(new HashSet<>(List.of(1, 2, 3)), new TreeSet<>(List.of(5, 1)))));
+        ar.setOpList(new LinkedList<>(List.of(new OnlyPrimitives(), op)));
+
+        TimeClass tc = new TimeClass();
+        tc.setListDate(new ArrayList<>(List.of(LocalDate.of(-20, 1, 1), LocalDate.of(2002, 11, 23))));
+        tc.setListTime(new LinkedList<>(List.of(LocalTime.MAX)));
+        tc.setListDateTime(new ArrayList<>(List.of(LocalDateTime.now())));
+        ar.setTc(tc);
+
+        ObjectsIn in = new ObjectsIn();
+        in.setArra(ar);
+        in.setOps(op);
+        in.setLotOfArr(new LinkedList<>(List.of(ar, new Arrays())));
+        in.setEmpty(new HashSet<>());
+
+        assertRoundTrip(ObjectsIn.class, in);
+
+        Enums enums = new Enums();
+        enums.setNh(NullHandling.EXCLUDE);
+        enums.setUp(new LinkedList<>(List.of(UnknownPropertiesPolicy.IGNORE, UnknownPropertiesPolicy.FAIL)));
+        assertRoundTrip(Enums.class, enums);
+    }
+
+    @Test
+    void testNulls() {
+        IncludeNullClass include = new IncludeNullClass();
+        include.setByt((byte) 12);
+        include.setNullFake("null");
+        include.setListInt(new ArrayList<>(java.util.Arrays.asList(123, null, 43)));
+
+        ExcludeNullClass exclude = new ExcludeNullClass();
+        exclude.setByt((byte) 33);
+        exclude.setCls(include);
+
+        assertRoundTrip(ExcludeNullClass.class, exclude);
+    }
+
+    @Test
+    void testStreamsAndFiles() throws IOException {
+        Arrays ar = new Arrays();
+        Set<String> strings = new TreeSet<>();
+        for (int i = 0; i < 5000; ++i) {
+            strings.add("строка 😀 " + i);
+        }
+        ar.setSet(strings);
+        String expected = text.writeToString(ar);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        binary.write(ar, out);
+        assertArrayEquals(binary.writeToBytes(ar), out.toByteArray());
+        assertEquals(expected, text.writeToString(binary.read(Arrays.class, new ByteArrayInputStream(out.toByteArray()))));
+
+        File file = File.createTempFile("binary", ".bin");
+        file.deleteOnExit();
+        binary.write(ar, file);
+        assertEquals(expected, text.writeToString(binary.read(Arrays.class, file)));
+    }
+
+    @Test
+    void testBatch() throws IOException {
+        List<OnlyPrimitives> ops = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i) {
+            OnlyPrimitives op = new OnlyPrimitives();
+            op.setNum(i);
+            op.setStr("op " + i);
+            ops.add(op);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        binary.writeAll(ops, bytes);
+        Iterator<OnlyPrimitives> it = binary.readAll(OnlyPrimitives.class,
+                new ByteArrayInputStream(bytes.toByteArray())).iterator();
+        for (OnlyPrimitives op : ops) {
+            assertEquals(text.writeToString(op), text.writeToString(it.next()));
+        }
+        assertFalse(it.hasNext());
+        assertThrows(NoSuchElementException.class, it::next);
+
+        assertEquals(0, binary.readAll(OnlyPrimitives.class, new ByteArrayInputStream(new byte[0])).count());
+        byte[] truncated = java.util.Arrays.copyOf(bytes.toByteArray(), bytes.size() - 1);
+        assertThrows(ExportMapperException.class, () -> binary.readAll(OnlyPrimitives.class,
+                new ByteArrayInputStream(truncated)).count());
+    }
+
+    @Test
+    void testExtract() {
+        OnlyPrimitives op = new OnlyPrimitives();
+        op.setStr("строка");
+        op.setNum(42);
+        Arrays ar = new Arrays();
+        ar.setOp(op);
+        ar.setList(new ArrayList<>(List.of(1, 2)));
+        Enums enums = new Enums();
+        enums.setNh(NullHandling.INCLUDE);
+        enums.setUp(new ArrayList<>(List.of(UnknownPropertiesPolicy.FAIL)));
+
+        byte[] bytes = binary.writeToBytes(ar);
+        assertEquals("строка", binary.extract(bytes, "op.str"));
+        assertEquals(42, binary.extract(bytes, "op.num"));
+        assertNull(binary.extract(bytes, "op.arInAr.list"));
+        assertNull(binary.extract(bytes, "missing"));
+        assertEquals("INCLUDE", binary.extract(binary.writeToBytes(enums), "nh"));
+
+        assertThrows(ExportMapperException.class, () -> binary.extract(bytes, "op"));
+        assertThrows(ExportMapperException.class, () -> binary.extract(bytes, "list.x"));
+    }
+
+    @Test
+    void testUnknownProperties() {
+        WiderClass wider = new WiderClass();
+        byte[] bytes = binary.writeToBytes(wider);
+
+        IgnoreUnknownClass ignore = binary.readFromBytes(IgnoreUnknownClass.class, bytes);
+        assertEquals("a", ignore.str);
+        assertEquals(7, ignore.num);
+
+        assertThrows(ExportMapperException.class, () -> binary.readFromBytes(FailUnknownClass.class, bytes));
+    }
+
+    @Test
+    void testErrors() {
+        CycleClassHelper helper = new CycleClassHelper();
+        CycleClass cycle = new CycleClass();
+        cycle.setHelper(helper);
+        helper.setCycle(cycle);
+        assertThrows(ExportMapperException.class, () -> binary.writeToBytes(cycle));
+        assertThrows(ExportMapperException.class, () -> binary.writeToBytes(new NotExportedClass()));
+
+        byte[] bytes = binary.writeToBytes(new OnlyPrimitives());
+        assertThrows(ExportMapperException.class,
+                () -> binary.readFromBytes(OnlyPrimitives.class, java.util.Arrays.copyOf(bytes, bytes.length - 1)));
+        assertThrows(ExportMapperException.class,
+                () -> binary.readFromBytes(OnlyPrimitives.class, java.util.Arrays.copyOf(bytes, bytes.length + 1)));
+        assertThrows(ExportMapperException.class, () -> binary.readFromString(OnlyPrimitives.class, "{}"));
+
+        // Corrupt lengths are rejected before anything is allocated for them.
+        PrimitiveArraysClass arrays = new PrimitiveArraysClass();
+        arrays.ints = new int[]{5, 6, 7};
+        byte[] valid = binary.writeToBytes(arrays);
+        byte[] maxLength = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+        byte[] huge = replaceLength(valid, new byte[]{3, 10, 12, 14}, maxLength);
+        byte[] negative = replaceLength(valid, new byte[]{3, 10, 12, 14},
+                new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F});
+        ExportMapperException e = assertThrows(ExportMapperException.class,
+                () -> binary.readFromBytes(PrimitiveArraysClass.class, huge));
+        assertTrue(e.getMessage().startsWith("Malformed length"));
+        e = assertThrows(ExportMapperException.class, () -> binary.readFromBytes(PrimitiveArraysClass.class, negative));
+        assertTrue(e.getMessage().startsWith("Malformed length"));
+        assertThrows(ExportMapperException.class,
+                () -> binary.read(PrimitiveArraysClass.class, new ByteArrayInputStream(huge)));
+
+        OnlyPrimitives op = new OnlyPrimitives();
+        op.setStr("abc");
+        byte[] hugeString = replaceLength(binary.writeToBytes(op), new byte[]{3, 'a', 'b', 'c'}, maxLength);
+        assertThrows(ExportMapperException.class, () -> binary.readFromBytes(OnlyPrimitives.class, hugeString));
+        assertThrows(ExportMapperException.class,
+                () -> binary.read(OnlyPrimitives.class, new ByteArrayInputStream(hugeString)));
+    }
+
+    /**
+     * Replaces the first byte of {@code pattern}, a length followed by the values, with {@code length}.
+     */
+    private static byte[] replaceLength(byte[] bytes, byte[] pattern, byte[] length) {
+        for (int i = 0; i + pattern.length <= bytes.length; ++i) {
+            if (java.util.Arrays.equals(bytes, i, i + pattern.length, pattern, 0, pattern.length)) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                out.write(bytes, 0, i);
+                out.writeBytes(length);
+                out.write(bytes, i + 1, bytes.length - i - 1);
+                return out.toByteArray();
+            }
+        }
+        throw new AssertionError("No pattern in the input");
+    }
+}
+
+@Exported
+class WiderClass {
+    public WiderClass() {
+    }
+
+    @PropertyName("extra")
+    List<Integer> list = new ArrayList<>(List.of(1, 2));
+    EmptyClass obj = new EmptyClass();
+    String str = "a";
+    LocalDateTime time = LocalDateTime.now();
+    UnknownPropertiesPolicy policy = UnknownPropertiesPolicy.FAIL;
+    double[] doubles = {1.5, -2};
+    boolean[] flags = {true};
+    char[] chars = {'\uFFFF'};
+    Map<String, List<Integer>> map = new HashMap<>(Map.of("k", new ArrayList<>(List.of(1))));
+    int num = 7;
+}
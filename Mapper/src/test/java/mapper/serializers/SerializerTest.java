@@ -4,7 +4,11 @@ import mapper.annotations.DateFormat;
 import mapper.annotations.Exported;
 import mapper.annotations.Ignored;
 import mapper.annotations.PropertyName;
+import mapper.enums.AccessorStrategy;
+import mapper.enums.FileMode;
 import mapper.enums.NullHandling;
+import mapper.enums.ReferenceHandling;
+import mapper.enums.TypeTagFormat;
 import mapper.enums.UnknownPropertiesPolicy;
 import mapper.exceptions.ExportMapperException;
 import mapper.interfaces.Mapper;
@@ -12,10 +16,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.*;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -43,6 +50,25 @@ class SerializerTest {
 
     }
 
+    @Test
+    void readWriteLargeStream() throws IOException {
+        Arrays ar = new Arrays();
+        Set<String> strings = new TreeSet<>();
+        for (int i = 0; i < 5000; ++i) {
+            strings.add("строка \uD83D\uDE00 " + i);
+        }
+        ar.setSet(strings);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serializer.write(ar, out);
+
+        String str = serializer.writeToString(ar);
+        assertArrayEquals(str.getBytes(StandardCharsets.UTF_8), out.toByteArray());
+
+        Arrays des = serializer.read(Arrays.class, new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(str, serializer.writeToString(des));
+    }
+
     @Test
     void readWriteFile() {
         GoodClass obj = new GoodClass();
@@ -53,6 +79,43 @@ class SerializerTest {
 
     }
 
+    @Test
+    void readWriteMappedFile() throws IOException {
+        Serializer mapped = new Serializer();
+        mapped.setFileMode(FileMode.MAPPED);
+
+        Arrays ar = new Arrays();
+        Set<String> strings = new TreeSet<>();
+        for (int i = 0; i < 5000; ++i) {
+            strings.add("строка \uD83D\uDE00 " + i);
+        }
+        ar.setSet(strings);
+
+        File file = new File("src/test/files/test1");
+        mapped.write(ar, file);
+        String str = serializer.writeToString(ar);
+
+        assertEquals(str, serializer.writeToString(serializer.read(Arrays.class, file)));
+        assertEquals(str, serializer.writeToString(mapped.read(Arrays.class, file)));
+
+        serializer.write(new GoodClass(), file);
+        assertEquals(serializer.writeToString(new GoodClass()),
+                serializer.writeToString(mapped.read(GoodClass.class, file)));
+    }
+
+    @Test
+    void readEmptyFile() throws IOException {
+        File file = File.createTempFile("empty", ".txt");
+        file.deleteOnExit();
+        for (FileMode mode : FileMode.values()) {
+            Serializer reader = new Serializer();
+            reader.setFileMode(mode);
+            ExportMapperException e = assertThrows(ExportMapperException.class,
+                    () -> reader.read(GoodClass.class, file));
+            assertEquals("Unexpected end of input", e.getMessage());
+        }
+    }
+
     @Test
     void readString() {
 
@@ -266,6 +329,72 @@ class SerializerTest {
         assertThrows(ExportMapperException.class, () -> serializer.writeToString(cCol));
     }
 
+    @Test
+    void testEqualObjectsAreNotCycles() {
+        EqualsClass outer = new EqualsClass();
+        outer.setInner(new EqualsClass());
+
+        String str = serializer.writeToString(outer);
+        assertEquals(str, serializer.writeToString(serializer.readFromString(EqualsClass.class, str)));
+    }
+
+    @Test
+    void testSharedReferences() {
+        Serializer sharing = new Serializer();
+        sharing.setReferenceHandling(ReferenceHandling.SHARE);
+
+        OnlyPrimitives op = new OnlyPrimitives();
+        op.setNum(42);
+        Arrays ar = new Arrays();
+        ar.setOp(op);
+        ar.setOpList(new ArrayList<>(List.of(op, op, new OnlyPrimitives())));
+
+        String str = sharing.writeToString(ar);
+        assertEquals(1, str.split("\"num#int\":\"42\"", -1).length - 1);
+
+        Arrays des = sharing.readFromString(Arrays.class, str);
+        assertEquals(str, sharing.writeToString(des));
+        assertSame(des.op, des.getOpList().get(0));
+        assertSame(des.op, des.getOpList().get(1));
+        assertNotSame(des.op, des.getOpList().get(2));
+
+        assertThrows(ExportMapperException.class, () -> serializer.readFromString(Arrays.class, str));
+
+        CycleClassHelper helper = new CycleClassHelper();
+        CycleClass cycle = new CycleClass();
+        helper.setCycle(cycle);
+        cycle.setHelper(helper);
+
+        CycleClass desCycle = sharing.readFromString(CycleClass.class, sharing.writeToString(cycle));
+        assertSame(desCycle, desCycle.getHelper().getCycle());
+    }
+
+    @Test
+    void testTypeDictionary() throws IOException {
+        Serializer dictionary = new Serializer();
+        dictionary.setTypeTagFormat(TypeTagFormat.DICTIONARY);
+
+        Arrays ar = new Arrays();
+        ar.setList(new ArrayList<>(List.of(1, 2, 3)));
+        ar.setInnerList(new LinkedList<>(List.of(new HashSet<>(List.of(1, 2)), new TreeSet<>(List.of(5)))));
+        ar.setOpList(new LinkedList<>(List.of(new OnlyPrimitives(), new OnlyPrimitives())));
+        ar.setSet(new TreeSet<>(List.of("a", "b")));
+
+        String inline = serializer.writeToString(ar);
+        String compact = dictionary.writeToString(ar);
+        assertTrue(compact.startsWith("~["));
+        assertEquals(1, compact.split("mapper.serializers.OnlyPrimitives\"", -1).length - 1);
+        assertTrue(compact.length() < inline.length());
+
+        assertEquals(inline, serializer.writeToString(serializer.readFromString(Arrays.class, compact)));
+        assertEquals(compact, dictionary.writeToString(dictionary.readFromString(Arrays.class, inline)));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        dictionary.write(ar, out);
+        assertEquals(inline, serializer.writeToString(
+                serializer.read(Arrays.class, new ByteArrayInputStream(out.toByteArray()))));
+    }
+
     @Test
     void testBadStrings() {
         BadStringsClass bs = new BadStringsClass();
@@ -308,6 +437,552 @@ class SerializerTest {
         assertEquals(str, st2);
     }
 
+    @Test
+    void testAccessorStrategies() {
+        AllPrimitives ap = new AllPrimitives();
+        ap.setValues(true, (byte) -5, (short) 300, 'q', Integer.MIN_VALUE, Long.MAX_VALUE, 1.5f, -0.25);
+
+        Serializer reflection = new Serializer();
+        reflection.setAccessorStrategy(AccessorStrategy.REFLECTION);
+        Serializer handles = new Serializer();
+        handles.setAccessorStrategy(AccessorStrategy.METHOD_HANDLES);
+
+        String str = reflection.writeToString(ap);
+        assertEquals(str, handles.writeToString(ap));
+        assertEquals(str, reflection.writeToString(handles.readFromString(AllPrimitives.class, str)));
+        assertEquals(str, handles.writeToString(reflection.readFromString(AllPrimitives.class, str)));
+    }
+
+    @Test
+    void testConcurrentUse() throws InterruptedException, ExecutionException {
+        Serializer shared = new Serializer();
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < threads; ++t) {
+                int seed = t;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 500; ++i) {
+                        OnlyPrimitives op = new OnlyPrimitives();
+                        op.setNum(seed * 1000 + i);
+                        op.setStr("thread " + seed);
+                        op.setInteger(i);
+
+                        Arrays ar = new Arrays();
+                        ar.setOp(op);
+                        ar.setOpList(new ArrayList<>(List.of(op, new OnlyPrimitives())));
+                        ar.setList(new ArrayList<>(List.of(seed, i)));
+
+                        String str = shared.writeToString(ar);
+                        assertTrue(str.contains("\"num#int\":\"" + (seed * 1000 + i) + "\""));
+                        assertEquals(str, shared.writeToString(shared.readFromString(Arrays.class, str)));
+
+                        if (i % 10 == 0) {
+                            PrimitiveCycle cycle = new PrimitiveCycle();
+                            cycle.setCycle(cycle);
+                            assertThrows(ExportMapperException.class, () -> shared.writeToString(cycle));
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testUnknownProperties() {
+        String str = "{\"str#java.lang.String\":\"a\",\"extra#java.util.ArrayList#java.util.List<java.lang.Integer>\":" +
+                "[\"java.lang.Integer\":\"1\"],\"obj#mapper.serializers.EmptyClass\":{},\"num#int\":\"7\"}";
+
+        IgnoreUnknownClass ignore = serializer.readFromString(IgnoreUnknownClass.class, str);
+        assertEquals("a", ignore.str);
+        assertEquals(7, ignore.num);
+
+        assertThrows(ExportMapperException.class,
+                () -> serializer.readFromString(FailUnknownClass.class, str));
+    }
+
+    @Test
+    void testPrimitiveArrays() throws IOException {
+        PrimitiveArraysClass arrays = new PrimitiveArraysClass();
+        arrays.fill();
+
+        String str = serializer.writeToString(arrays);
+        assertTrue(str.contains("\"ints#[I\":\"0,-1,2147483647,-2147483648\""));
+        assertTrue(str.contains("\"flags#[Z\":\"101\""));
+        assertTrue(str.contains("\"empty#[J\":\"\""));
+        assertTrue(str.contains("\"missing#null\":\"null\""));
+
+        PrimitiveArraysClass des = serializer.readFromString(PrimitiveArraysClass.class, str);
+        arrays.assertSame(des);
+        assertEquals(str, serializer.writeToString(des));
+
+        // Base64 of these bytes is "null", which must not be taken for a null array.
+        des.setBytes(new byte[]{(byte) 0x9E, (byte) 0xE9, 0x65});
+        str = serializer.writeToString(des);
+        assertArrayEquals(des.bytes, serializer.readFromString(PrimitiveArraysClass.class, str).bytes);
+
+        // Larger than the chunks of the stream reader.
+        des.setDoubles(new double[100_000]);
+        for (int i = 0; i < des.doubles.length; ++i) {
+            des.doubles[i] = i / 8.0 - 1000;
+        }
+        str = serializer.writeToString(des);
+        PrimitiveArraysClass streamed = serializer.read(PrimitiveArraysClass.class,
+                new ByteArrayInputStream(str.getBytes(StandardCharsets.UTF_8)));
+        assertArrayEquals(des.doubles, streamed.doubles);
+
+        Serializer dictionary = new Serializer();
+        dictionary.setTypeTagFormat(TypeTagFormat.DICTIONARY);
+        str = dictionary.writeToString(arrays);
+        arrays.assertSame(dictionary.readFromString(PrimitiveArraysClass.class, str));
+
+        assertThrows(ExportMapperException.class, () -> serializer.readFromString(PrimitiveArraysClass.class,
+                "{\"shorts#[S\":\"1,70000\"}"));
+    }
+
+    @Test
+    void testMaps() throws IOException {
+        MapsClass maps = new MapsClass();
+        maps.fill();
+
+        String str = serializer.writeToString(maps);
+        assertTrue(str.contains("\"counts#java.util.LinkedHashMap#java.util.Map<java.lang.String, java.lang.Integer>\":" +
+                "{\"a\":\"1\",\"b\":\"null\",\"null\":\"3\",\"\uFFF0q\uFFF0\":\"-4\"}"));
+        assertTrue(str.contains("\"missing#null#null\":\"null\""));
+
+        MapsClass des = serializer.readFromString(MapsClass.class, str);
+        assertEquals(maps.counts, des.counts);
+        assertEquals(maps.policies, des.policies);
+        assertEquals(maps.lists, des.lists);
+        assertEquals(TreeMap.class, des.policies.getClass());
+        assertNull(des.missing);
+        assertEquals(str, serializer.writeToString(des));
+
+        // Plain entries are parsed by the declared types only.
+        MapsClass large = new MapsClass();
+        large.counts = new LinkedHashMap<>();
+        for (int i = 0; i < 100_000; ++i) {
+            large.counts.put("key" + i, i);
+        }
+        str = serializer.writeToString(large);
+        MapsClass streamed = serializer.read(MapsClass.class,
+                new ByteArrayInputStream(str.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(large.counts, streamed.counts);
+
+        Serializer dictionary = new Serializer();
+        dictionary.setTypeTagFormat(TypeTagFormat.DICTIONARY);
+        str = dictionary.writeToString(maps);
+        assertEquals(serializer.writeToString(maps),
+                serializer.writeToString(dictionary.readFromString(MapsClass.class, str)));
+
+        assertThrows(ExportMapperException.class, () -> serializer.readFromString(MapsClass.class,
+                "{\"objects#java.util.HashMap#java.util.Map<java.lang.Integer, mapper.serializers.OnlyPrimitives>\":" +
+                        "{\"1\":\"2\"}}"));
+    }
+
+    @Test
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    void testUntaggedElements() {
+        UntaggedClass untagged = new UntaggedClass();
+        untagged.fill();
+
+        String str = serializer.writeToString(untagged);
+        assertTrue(str.contains("\"names#java.util.ArrayList#java.util.List<java.lang.String>\":[\"a\",\"null\",\"\uFFF4\"]"));
+        assertTrue(str.contains("\"nested#java.util.ArrayList#java.util.List<java.util.List<java.lang.Integer>>\":" +
+                "[\"java.util.ArrayList\":[\"1\",\"2\"],\"java.util.LinkedList\":[]]"));
+        assertTrue(str.contains("\"items#java.util.ArrayList#java.util.List<mapper.serializers.FinalItem>\":[{\"id#int\":\"1\"}"));
+
+        UntaggedClass des = serializer.readFromString(UntaggedClass.class, str);
+        assertEquals(untagged.names.subList(0, 2), des.names.subList(0, 2));
+        assertEquals("]", des.names.get(2));
+        assertEquals(untagged.numbers, des.numbers);
+        assertEquals(untagged.dates, des.dates);
+        assertEquals(untagged.nested, des.nested);
+        assertEquals(str, serializer.writeToString(des));
+
+        // Documents with element tags are still read.
+        String tagged = "{\"numbers#java.util.TreeSet#java.util.Set<java.lang.Integer>\":" +
+                "[\"java.lang.Integer\":\"3\"]," +
+                "\"items#java.util.ArrayList#java.util.List<mapper.serializers.FinalItem>\":" +
+                "[\"mapper.serializers.FinalItem\":{\"id#int\":\"5\"}]}";
+        UntaggedClass old = serializer.readFromString(UntaggedClass.class, tagged);
+        assertEquals(Set.of(3), old.numbers);
+        assertEquals(5, old.items.get(0).id);
+
+        Serializer sharing = new Serializer();
+        sharing.setReferenceHandling(ReferenceHandling.SHARE);
+        untagged.items.add(untagged.items.get(0));
+        str = sharing.writeToString(untagged);
+        des = sharing.readFromString(UntaggedClass.class, str);
+        assertSame(des.items.get(0), des.items.get(des.items.size() - 1));
+
+        ((List) untagged.names).add(1);
+        assertThrows(ExportMapperException.class, () -> serializer.writeToString(untagged));
+    }
+
+    @Test
+    void testGeneratedAccessors() throws NoSuchFieldException {
+        // Planned fields are made accessible first.
+        Field field = OnlyPrimitives.class.getDeclaredField("num");
+        assertTrue(field.trySetAccessible());
+        assertTrue(FieldAccessor.generate(field).getClass().isHidden());
+        assertFalse(FieldAccessor.reflect(field).getClass().isHidden());
+
+        FieldPlan plan = ClassPlan.of(OnlyPrimitives.class).field("num");
+        assertFalse(plan.accessor(AccessorStrategy.REFLECTION).getClass().isHidden());
+        assertTrue(plan.accessor(AccessorStrategy.METHOD_HANDLES).getClass().isHidden());
+        assertSame(plan.accessor(AccessorStrategy.METHOD_HANDLES), plan.accessor(AccessorStrategy.METHOD_HANDLES));
+    }
+
+    @Test
+    void testRecords() {
+        Point origin = new Point(0, 0.5, 7, LocalDate.of(2021, 3, 4), new ArrayList<>(), new HashMap<>());
+        Point point = new Point(-3, 1e-3, 8, null, new ArrayList<>(List.of(origin)), new TreeMap<>(Map.of("a", 1)));
+
+        String str = serializer.writeToString(point);
+        assertTrue(str.contains("\"why#double\":\"0.001\""));
+        assertTrue(str.contains("\"day#java.time.LocalDate\":\"04.03.2021\""));
+        assertFalse(str.contains("ignored"));
+
+        for (AccessorStrategy strategy : AccessorStrategy.values()) {
+            Serializer reader = new Serializer();
+            reader.setAccessorStrategy(strategy);
+            Point des = reader.readFromString(Point.class, str);
+            assertEquals(new Point(-3, 1e-3, 0, null, List.of(new Point(0, 0.5, 0, origin.day(), List.of(), Map.of())),
+                    Map.of("a", 1)), des);
+            assertEquals(str, serializer.writeToString(des));
+        }
+
+        assertEquals(new Point(0, 0, 0, null, null, null), serializer.readFromString(Point.class, "{}"));
+        assertThrows(ExportMapperException.class, () -> serializer.readFromString(Range.class,
+                "{\"from#int\":\"2\",\"to#int\":\"1\"}"));
+
+        Serializer sharing = new Serializer();
+        sharing.setReferenceHandling(ReferenceHandling.SHARE);
+        Range range = new Range(1, 2);
+        CycleList list = new CycleList();
+        list.list = new ArrayList<>(List.of(range, range));
+        CycleList desList = sharing.readFromString(CycleList.class, sharing.writeToString(list));
+        assertEquals(range, desList.list.get(0));
+        assertSame(desList.list.get(0), desList.list.get(1));
+
+        RecordList cyclic = new RecordList(new ArrayList<>());
+        cyclic.items().add(cyclic);
+        String cyclicStr = sharing.writeToString(cyclic);
+        assertThrows(ExportMapperException.class, () -> sharing.readFromString(RecordList.class, cyclicStr));
+    }
+
+    @Test
+    void testInheritance() {
+        ClickEvent click = new ClickEvent();
+        click.id = 1;
+        click.source = "mouse";
+        click.x = 10;
+        KeyEvent key = new KeyEvent();
+        key.id = 2;
+        key.key = 'q';
+
+        EventLog log = new EventLog();
+        log.last = key;
+        log.events = new ArrayList<>(List.of(click, key));
+
+        String str = serializer.writeToString(log);
+        assertTrue(str.contains("\"last#mapper.serializers.KeyEvent\":{\"id#long\":\"2\",\"key#char\":\"q\"}"));
+        assertTrue(str.contains("\"mapper.serializers.ClickEvent\":{\"id#long\":\"1\",\"source#java.lang.String\":\"mouse\","));
+
+        EventLog des = serializer.readFromString(EventLog.class, str);
+        assertEquals(KeyEvent.class, des.last.getClass());
+        assertEquals('q', ((KeyEvent) des.last).key);
+        ClickEvent desClick = (ClickEvent) des.events.get(0);
+        assertEquals("mouse", desClick.source);
+        assertEquals(10, desClick.x);
+        assertEquals(str, serializer.writeToString(des));
+
+        assertThrows(ExportMapperException.class, () -> serializer.writeToString(new ShadowingEvent()));
+        assertThrows(ExportMapperException.class, () -> serializer.writeToString(new PlainSubclass()));
+        assertThrows(ExportMapperException.class, () -> serializer.readFromString(EventLog.class,
+                "{\"last#mapper.serializers.OnlyPrimitives\":{}}"));
+    }
+
+    @Test
+    void testLazyCollections() {
+        Arrays ar = new Arrays();
+        List<OnlyPrimitives> ops = new LinkedList<>();
+        for (int i = 0; i < 100; ++i) {
+            OnlyPrimitives op = new OnlyPrimitives();
+            op.setNum(i);
+            op.setStr("op " + i);
+            ops.add(op);
+        }
+        ar.setOpList(ops);
+        ar.setList(new ArrayList<>(List.of(1, 2, 3)));
+        ar.setSet(new TreeSet<>(List.of("a")));
+        ar.setInnerList(new ArrayList<>(List.of(new HashSet<>(List.of(4)))));
+        String str = serializer.writeToString(ar);
+
+        Serializer lazy = new Serializer();
+        lazy.setLazyCollections(true);
+        Arrays des = lazy.readFromString(Arrays.class, str);
+        LazyList opList = assertInstanceOf(LazyList.class, des.getOpList());
+        assertFalse(opList.isParsed());
+        assertEquals(str, serializer.writeToString(des));
+        assertTrue(opList.isParsed());
+        assertEquals(LinkedList.class, opList.list().getClass());
+        assertEquals("op 99", des.getOpList().get(99).str);
+
+        Arrays binary = new BinarySerializer().readFromBytes(Arrays.class,
+                new BinarySerializer().writeToBytes(lazy.readFromString(Arrays.class, str)));
+        assertEquals(str, serializer.writeToString(binary));
+
+        Serializer dictionary = new Serializer();
+        dictionary.setTypeTagFormat(TypeTagFormat.DICTIONARY);
+        assertEquals(str, serializer.writeToString(lazy.readFromString(Arrays.class, dictionary.writeToString(ar))));
+
+        // Errors inside a lazy list are found on the first access, broken structure at once.
+        Arrays broken = lazy.readFromString(Arrays.class, str.replace("\"num#int\":\"99\"", "\"num#int\":\"x\""));
+        assertThrows(ExportMapperException.class, () -> broken.getOpList().size());
+        assertThrows(ExportMapperException.class, () -> lazy.readFromString(Arrays.class,
+                str.replace("\"num#int\":\"99\"}", "\"num#int\":\"99\"")));
+    }
+
+    @Test
+    void testProjection() {
+        OnlyPrimitives op = new OnlyPrimitives();
+        op.setStr("op");
+        Arrays ar = new Arrays();
+        ar.setOp(op);
+        ar.setOpList(new ArrayList<>(List.of(op, new OnlyPrimitives())));
+        ar.setList(new ArrayList<>(List.of(1, 2)));
+        ar.setInnerList(new ArrayList<>(List.of(new TreeSet<>(List.of(3)))));
+        String str = serializer.writeToString(ar);
+
+        Arrays expected = new Arrays();
+        expected.setOp(op);
+        expected.setList(new ArrayList<>(List.of(1, 2)));
+        String expectedStr = serializer.writeToString(expected);
+
+        Serializer projecting = new Serializer();
+        Arrays des = projecting.readFromString(Arrays.class, str, Set.of("list", "op"));
+        assertEquals("op", des.op.str);
+        assertNull(des.getOpList());
+        assertEquals(expectedStr, serializer.writeToString(des));
+
+        // Skipped values are not parsed, so their classes are not loaded.
+        String unknownClass = str.replace("\"mapper.serializers.OnlyPrimitives\":", "\"no.such.Type\":");
+        assertEquals(expectedStr, serializer.writeToString(
+                projecting.readFromString(Arrays.class, unknownClass, Set.of("list", "op"))));
+        assertThrows(ExportMapperException.class, () -> projecting.readFromString(Arrays.class, unknownClass));
+
+        Serializer dictionary = new Serializer();
+        dictionary.setTypeTagFormat(TypeTagFormat.DICTIONARY);
+        assertEquals(expectedStr, serializer.writeToString(projecting.readFromString(Arrays.class,
+                dictionary.writeToString(ar), Set.of("list", "op"))));
+
+        Point point = new Point(1, 2.5, 0, null, null, null);
+        assertEquals(new Point(0, 2.5, 0, null, null, null), projecting.readFromString(Point.class,
+                serializer.writeToString(point), Set.of("why")));
+
+        assertThrows(ExportMapperException.class, () -> projecting.readFromString(Arrays.class, str, Set.of("y")));
+        projecting.setReferenceHandling(ReferenceHandling.SHARE);
+        assertThrows(ExportMapperException.class, () -> projecting.readFromString(Arrays.class, str, Set.of("list")));
+    }
+
+    @Test
+    void testExtract() {
+        OnlyPrimitives op = new OnlyPrimitives();
+        op.setStr("not null");
+        op.setNum(42);
+        op.setInteger(-7);
+        TimeClass tc = new TimeClass();
+        Arrays ar = new Arrays();
+        ar.setOp(op);
+        ar.setTc(tc);
+        ar.setOpList(new ArrayList<>(List.of(op)));
+        String str = serializer.writeToString(ar);
+        String recovered = serializer.readFromString(Arrays.class, str).op.str;
+
+        Serializer extractor = new Serializer();
+        assertEquals(recovered, extractor.extract(str, "op.str"));
+        assertEquals("42", extractor.extract(str, "op.num"));
+        assertEquals(42, extractor.extract(str, "op.num", int.class));
+        assertEquals(-7, extractor.extract(str, "op.chislo", Integer.class));
+        assertEquals(tc.lDate, extractor.extract(str, "tc.lDate", LocalDate.class));
+        assertEquals(tc.ldT, extractor.extract(str, "tc.ldT", LocalDateTime.class));
+        assertEquals(recovered, extractor.extract(str.getBytes(StandardCharsets.UTF_8), "op.str"));
+        assertNull(extractor.extract(str, "op.arInAr.list"));
+        assertNull(extractor.extract(str, "missing"));
+
+        // Classes of the document are not needed.
+        String unknownClasses = str.replace("mapper.serializers.", "no.such.");
+        assertEquals("42", extractor.extract(unknownClasses, "op.num"));
+
+        Serializer dictionary = new Serializer();
+        dictionary.setTypeTagFormat(TypeTagFormat.DICTIONARY);
+        assertEquals(recovered, extractor.extract(dictionary.writeToString(ar), "op.str"));
+
+        Enums enums = new Enums();
+        enums.setNh(NullHandling.INCLUDE);
+        assertEquals(NullHandling.INCLUDE, extractor.extract(serializer.writeToString(enums), "nh", NullHandling.class));
+
+        // Shared objects are found by their position in the document.
+        OnlyPrimitives shared = new OnlyPrimitives();
+        shared.setNum(5);
+        Arrays inner = new Arrays();
+        inner.setOp(op);
+        inner.setTc(tc);
+        inner.setOpList(new ArrayList<>(List.of(new OnlyPrimitives(), shared)));
+        ObjectsIn objectsIn = new ObjectsIn();
+        objectsIn.setArra(inner);
+        objectsIn.setOps(shared);
+        Serializer sharing = new Serializer();
+        sharing.setReferenceHandling(ReferenceHandling.SHARE);
+        String sharedStr = sharing.writeToString(objectsIn);
+        assertTrue(sharedStr.contains("\"ops#mapper.serializers.OnlyPrimitives\":\"@5\""));
+        assertEquals("5", extractor.extract(sharedStr, "ops.num"));
+        assertEquals("5", extractor.extract(sharedStr.getBytes(StandardCharsets.UTF_8), "ops.num"));
+        sharing.setTypeTagFormat(TypeTagFormat.DICTIONARY);
+        assertEquals("5", extractor.extract(sharing.writeToString(objectsIn), "ops.num"));
+        assertThrows(ExportMapperException.class, () -> extractor.extract(sharedStr, "ops"));
+        assertThrows(ExportMapperException.class, () -> extractor.extract(sharedStr.replace("@5", "@9"), "ops.num"));
+
+        assertThrows(ExportMapperException.class, () -> extractor.extract(str, "op"));
+        assertThrows(ExportMapperException.class, () -> extractor.extract(str, "opList"));
+        assertThrows(ExportMapperException.class, () -> extractor.extract(str, "opList.str"));
+        assertThrows(ExportMapperException.class, () -> extractor.extract(str, "op.str", int.class));
+        assertThrows(IllegalArgumentException.class, () -> extractor.extract(str, "op..str"));
+        assertThrows(IllegalArgumentException.class, () -> extractor.extract(str, "op", OnlyPrimitives.class));
+    }
+
+    @Test
+    void testParallelWrite() throws IOException {
+        Arrays ar = new Arrays();
+        List<OnlyPrimitives> ops = new ArrayList<>();
+        for (int i = 0; i < 5000; ++i) {
+            OnlyPrimitives op = new OnlyPrimitives();
+            op.setNum(i);
+            op.setStr("op " + i);
+            ops.add(op);
+        }
+        ar.setOpList(ops);
+        List<Set<Integer>> sets = new ArrayList<>();
+        for (int i = 0; i < 300; ++i) {
+            sets.add(new TreeSet<>(List.of(i, -i)));
+        }
+        ar.setInnerList(sets);
+
+        Serializer parallel = new Serializer();
+        parallel.setParallelThreshold(100);
+        parallel.setForkJoinPool(new ForkJoinPool(4));
+
+        String expected = serializer.writeToString(ar);
+        assertEquals(expected, parallel.writeToString(ar));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        parallel.write(ar, out);
+        assertEquals(expected, out.toString(StandardCharsets.UTF_8));
+
+        PrimitiveCycle cycle = new PrimitiveCycle();
+        CycleList list = new CycleList();
+        list.list = new ArrayList<>(Collections.nCopies(200, cycle));
+        cycle.setCycle(new PrimitiveCycle());
+        assertEquals(serializer.writeToString(list), parallel.writeToString(list));
+        list.list.add(list);
+        assertThrows(ExportMapperException.class, () -> parallel.writeToString(list));
+
+        assertThrows(IllegalArgumentException.class, () -> parallel.setParallelThreshold(-1));
+    }
+
+    @Test
+    void testParallelRead() {
+        Arrays ar = new Arrays();
+        List<OnlyPrimitives> ops = new LinkedList<>();
+        List<Integer> ints = new ArrayList<>();
+        for (int i = 0; i < 3000; ++i) {
+            OnlyPrimitives op = new OnlyPrimitives();
+            op.setNum(i);
+            op.setStr("[op] " + i);
+            ops.add(op);
+            ints.add(i % 7 == 0 ? null : i);
+        }
+        ops.add(null);
+        ar.setOpList(ops);
+        ar.setList(ints);
+        ar.setInnerList(new ArrayList<>(Collections.nCopies(500, new TreeSet<>(List.of(1, 2)))));
+
+        Serializer parallel = new Serializer();
+        parallel.setParallelThreshold(100);
+        parallel.setForkJoinPool(new ForkJoinPool(4));
+
+        String str = serializer.writeToString(ar);
+        Arrays des = parallel.readFromString(Arrays.class, str);
+        assertEquals(LinkedList.class, des.getOpList().getClass());
+        assertEquals(str, serializer.writeToString(des));
+
+        Serializer dictionary = new Serializer();
+        dictionary.setTypeTagFormat(TypeTagFormat.DICTIONARY);
+        assertEquals(str, serializer.writeToString(
+                parallel.readFromString(Arrays.class, dictionary.writeToString(ar))));
+
+        assertThrows(ExportMapperException.class, () -> parallel.readFromString(Arrays.class,
+                str.replace("\"num#int\":\"2999\"", "\"num#int\":\"x\"")));
+        assertThrows(ExportMapperException.class, () -> parallel.readFromString(Arrays.class,
+                str.replace("\"2998\",", "\"2998\"x,")));
+    }
+
+    @Test
+    void testBatch() throws IOException {
+        List<OnlyPrimitives> ops = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i) {
+            OnlyPrimitives op = new OnlyPrimitives();
+            op.setNum(i);
+            op.setStr("line\n" + i);
+            ops.add(op);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        serializer.writeAll(ops, bytes);
+        String str = bytes.toString(StandardCharsets.UTF_8);
+        assertTrue(str.startsWith(serializer.writeToString(ops.get(0)) + "\n"));
+
+        boolean[] closed = new boolean[1];
+        InputStream input = new ByteArrayInputStream(bytes.toByteArray()) {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+        try (java.util.stream.Stream<OnlyPrimitives> stream = serializer.readAll(OnlyPrimitives.class, input)) {
+            Iterator<OnlyPrimitives> it = stream.iterator();
+            for (OnlyPrimitives op : ops) {
+                assertEquals(serializer.writeToString(op), serializer.writeToString(it.next()));
+            }
+            assertFalse(it.hasNext());
+        }
+        assertTrue(closed[0]);
+
+        Serializer dictionary = new Serializer();
+        dictionary.setTypeTagFormat(TypeTagFormat.DICTIONARY);
+        bytes.reset();
+        dictionary.writeAll(ops, bytes);
+        assertEquals(ops.size(), dictionary.readAll(OnlyPrimitives.class,
+                new ByteArrayInputStream(bytes.toByteArray())).count());
+
+        assertEquals(0, serializer.readAll(OnlyPrimitives.class, new ByteArrayInputStream(new byte[0])).count());
+        assertThrows(ExportMapperException.class, () -> serializer.readAll(OnlyPrimitives.class,
+                new ByteArrayInputStream((str + "x").getBytes(StandardCharsets.UTF_8))).count());
+    }
+
     @Test
     void testEnums() {
         Enums enums = new Enums();
@@ -319,6 +994,11 @@ class SerializerTest {
 
         String str2 = serializer.writeToString(serializer.readFromString(Enums.class, str));
         assertEquals(str, str2);
+
+        assertThrows(ExportMapperException.class,
+                () -> serializer.readFromString(Enums.class, str.replace("EXCLUDE", "MISSING")));
+        assertThrows(ExportMapperException.class,
+                () -> serializer.readFromString(Enums.class, str.replace("\"IGNORE\"", "\"MISSING\"")));
     }
 }
 
@@ -411,6 +1091,50 @@ class Enums {
     }
 }
 
+@Exported
+class AllPrimitives {
+    public AllPrimitives() {
+    }
+
+    private boolean bool;
+    private byte b;
+    private short s;
+    private char c;
+    private int i;
+    private long l;
+    private float f;
+    private double d;
+
+    public void setValues(boolean bool, byte b, short s, char c, int i, long l, float f, double d) {
+        this.bool = bool;
+        this.b = b;
+        this.s = s;
+        this.c = c;
+        this.i = i;
+        this.l = l;
+        this.f = f;
+        this.d = d;
+    }
+}
+
+@Exported(unknownPropertiesPolicy = UnknownPropertiesPolicy.IGNORE)
+class IgnoreUnknownClass {
+    public IgnoreUnknownClass() {
+    }
+
+    String str;
+    int num;
+}
+
+@Exported
+class FailUnknownClass {
+    public FailUnknownClass() {
+    }
+
+    String str;
+    int num;
+}
+
 @Exported
 class GoodClass {
     static int statica = 5;
@@ -453,6 +1177,10 @@ class CycleClass {
     public void setHelper(CycleClassHelper helper) {
         this.helper = helper;
     }
+
+    public CycleClassHelper getHelper() {
+        return helper;
+    }
 }
 
 @Exported
@@ -465,6 +1193,32 @@ class CycleClassHelper {
     public void setCycle(CycleClass cycle) {
         this.cycle = cycle;
     }
+
+    public CycleClass getCycle() {
+        return cycle;
+    }
+}
+
+@Exported
+class EqualsClass {
+    public EqualsClass() {
+    }
+
+    private EqualsClass inner;
+
+    public void setInner(EqualsClass inner) {
+        this.inner = inner;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof EqualsClass;
+    }
+
+    @Override
+    public int hashCode() {
+        return 0;
+    }
 }
 
 @Exported
@@ -665,6 +1419,10 @@ class Arrays {
 
     private List<OnlyPrimitives> opList;
 
+    public List<OnlyPrimitives> getOpList() {
+        return opList;
+    }
+
     public void setList(List<Integer> list) {
         this.list = list;
     }
@@ -715,3 +1473,202 @@ class ObjectsIn {
 
     List<Arrays> lotOfArr;
 }
+
+@Exported(nullHandling = NullHandling.INCLUDE)
+class PrimitiveArraysClass {
+    public PrimitiveArraysClass() {
+    }
+
+    int[] ints;
+    long[] longs;
+    double[] doubles;
+    float[] floats;
+    short[] shorts;
+    char[] chars;
+    boolean[] flags;
+    byte[] bytes;
+    long[] empty;
+    int[] missing;
+    List<int[]> inList;
+
+    public void fill() {
+        ints = new int[]{0, -1, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        longs = new long[]{Long.MIN_VALUE, 42, Long.MAX_VALUE};
+        doubles = new double[]{0.1, -0.0, 1e300, Double.MIN_VALUE, 7};
+        floats = new float[]{0.5f, Float.MAX_VALUE, -3};
+        shorts = new short[]{Short.MIN_VALUE, Short.MAX_VALUE};
+        chars = new char[]{'a', '"', '\uFFFF'};
+        flags = new boolean[]{true, false, true};
+        bytes = new byte[]{0, -128, 127, 5};
+        empty = new long[0];
+        inList = new ArrayList<>(List.of(new int[]{1, 2}, new int[0]));
+    }
+
+    public void setBytes(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    public void setDoubles(double[] doubles) {
+        this.doubles = doubles;
+    }
+
+    public void assertSame(PrimitiveArraysClass other) {
+        assertArrayEquals(ints, other.ints);
+        assertArrayEquals(longs, other.longs);
+        assertArrayEquals(doubles, other.doubles);
+        assertArrayEquals(floats, other.floats);
+        assertArrayEquals(shorts, other.shorts);
+        assertArrayEquals(chars, other.chars);
+        assertArrayEquals(flags, other.flags);
+        assertArrayEquals(bytes, other.bytes);
+        assertArrayEquals(empty, other.empty);
+        assertNull(other.missing);
+        assertEquals(inList.size(), other.inList.size());
+        for (int i = 0; i < inList.size(); ++i) {
+            assertArrayEquals(inList.get(i), other.inList.get(i));
+        }
+    }
+}
+
+@Exported(nullHandling = NullHandling.INCLUDE)
+class MapsClass {
+    public MapsClass() {
+    }
+
+    Map<String, Integer> counts;
+    TreeMap<UnknownPropertiesPolicy, Double> policies;
+    Map<Integer, OnlyPrimitives> objects;
+    Map<Character, List<String>> lists;
+    List<Map<String, Integer>> inList;
+    Map<String, String> missing;
+
+    public void fill() {
+        counts = new LinkedHashMap<>();
+        counts.put("a", 1);
+        counts.put("b", null);
+        counts.put(null, 3);
+        counts.put("\"q\"", -4);
+
+        policies = new TreeMap<>(Map.of(UnknownPropertiesPolicy.FAIL, 0.5, UnknownPropertiesPolicy.IGNORE, -2.0));
+
+        OnlyPrimitives op = new OnlyPrimitives();
+        op.setStr("op");
+        objects = new LinkedHashMap<>();
+        objects.put(7, op);
+        objects.put(8, null);
+
+        lists = new LinkedHashMap<>();
+        lists.put('x', new ArrayList<>(List.of("a", "b")));
+        lists.put('y', new ArrayList<>());
+
+        inList = new ArrayList<>(List.of(new LinkedHashMap<>(Map.of("k", 1)), new HashMap<>()));
+    }
+}
+
+@Exported(nullHandling = NullHandling.INCLUDE)
+class UntaggedClass {
+    public UntaggedClass() {
+    }
+
+    List<String> names;
+    Set<Integer> numbers;
+    List<LocalDate> dates;
+    List<FinalItem> items;
+    List<List<Integer>> nested;
+
+    public void fill() {
+        names = new ArrayList<>(java.util.Arrays.asList("a", null, "null"));
+        numbers = new HashSet<>(java.util.Arrays.asList(1, null, -7));
+        dates = new ArrayList<>(List.of(LocalDate.of(2020, 2, 29)));
+        FinalItem item = new FinalItem();
+        item.id = 1;
+        items = new ArrayList<>(java.util.Arrays.asList(item, null, new FinalItem()));
+        nested = new ArrayList<>(List.of(new ArrayList<>(List.of(1, 2)), new LinkedList<>()));
+    }
+}
+
+@Exported
+final class FinalItem {
+    public FinalItem() {
+    }
+
+    int id;
+}
+
+@Exported
+record Point(int x, @PropertyName("why") double y, @Ignored long ignored, @DateFormat("dd.MM.yyyy") LocalDate day,
+             List<Point> neighbours, Map<String, Integer> tags) {
+}
+
+@Exported
+record Range(int from, int to) {
+    Range {
+        if (from > to) {
+            throw new IllegalArgumentException("from > to");
+        }
+    }
+}
+
+@Exported
+record RecordList(List<Object> items) {
+}
+
+@Exported
+abstract class BaseEvent {
+    public BaseEvent() {
+    }
+
+    long id;
+    String source;
+}
+
+@Exported
+class ClickEvent extends BaseEvent {
+    public ClickEvent() {
+    }
+
+    int x;
+}
+
+@Exported
+class KeyEvent extends BaseEvent {
+    public KeyEvent() {
+    }
+
+    char key;
+}
+
+@Exported
+class ShadowingEvent extends BaseEvent {
+    public ShadowingEvent() {
+    }
+
+    String source;
+}
+
+class PlainBase {
+    int value;
+}
+
+@Exported
+class PlainSubclass extends PlainBase {
+    public PlainSubclass() {
+    }
+}
+
+@Exported
+class EventLog {
+    public EventLog() {
+    }
+
+    BaseEvent last;
+    List<BaseEvent> events;
+}
+
+@Exported
+class CycleList {
+    public CycleList() {
+    }
+
+    List<Object> list;
+}
@@ -0,0 +1,69 @@
+package mapper.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IsoDateTimeTest {
+    private static String write(Object value) {
+        OutputBuffer out = new OutputBuffer();
+        IsoDateTime.write(value, out);
+        return out.toString();
+    }
+
+    @Test
+    void testSameAsToString() {
+        List<LocalDate> dates = new ArrayList<>(List.of(LocalDate.MIN, LocalDate.MAX, LocalDate.of(0, 1, 1),
+                LocalDate.of(-5, 2, 3), LocalDate.of(-1234, 12, 31), LocalDate.of(999, 9, 9),
+                LocalDate.of(9999, 12, 31), LocalDate.of(10_000, 1, 1)));
+        List<LocalTime> times = new ArrayList<>(List.of(LocalTime.MIN, LocalTime.MAX, LocalTime.NOON,
+                LocalTime.of(1, 2, 3), LocalTime.of(0, 0, 0, 1), LocalTime.of(0, 0, 0, 1000),
+                LocalTime.of(0, 0, 0, 1_000_000), LocalTime.of(23, 59, 0, 120_000_000)));
+
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; ++i) {
+            dates.add(LocalDate.ofEpochDay(random.nextInt(2_000_000) - 1_000_000));
+            int nano = switch (i % 4) {
+                case 0 -> 0;
+                case 1 -> random.nextInt(1000) * 1_000_000;
+                case 2 -> random.nextInt(1_000_000) * 1000;
+                default -> random.nextInt(1_000_000_000);
+            };
+            times.add(LocalTime.of(random.nextInt(24), random.nextInt(60), i % 5 == 0 ? 0 : random.nextInt(60), nano));
+        }
+
+        for (LocalDate date : dates) {
+            assertEquals(date.toString(), write(date));
+            assertEquals(date, IsoDateTime.parseDate(date.toString()));
+        }
+        for (LocalTime time : times) {
+            assertEquals(time.toString(), write(time));
+            assertEquals(time, IsoDateTime.parseTime(time.toString()));
+        }
+        for (int i = 0; i < dates.size(); ++i) {
+            LocalDateTime dateTime = LocalDateTime.of(dates.get(i), times.get(i));
+            assertEquals(dateTime.toString(), write(dateTime));
+            assertEquals(dateTime, IsoDateTime.parseDateTime(dateTime.toString()));
+        }
+    }
+
+    @Test
+    void testOtherLayouts() {
+        assertEquals(LocalTime.of(10, 15, 30, 120_000_000), IsoDateTime.parseTime("10:15:30.12"));
+        assertEquals(LocalDateTime.of(2022, 4, 15, 12, 30, 15, 1), IsoDateTime.parseDateTime("2022-04-15T12:30:15.000000001"));
+        assertEquals(LocalDate.of(10_000, 1, 1), IsoDateTime.parseDate("+10000-01-01"));
+
+        assertThrows(DateTimeParseException.class, () -> IsoDateTime.parseDate("2022-4-15"));
+        assertThrows(DateTimeParseException.class, () -> IsoDateTime.parseTime("10:15:"));
+        assertThrows(DateTimeParseException.class, () -> IsoDateTime.parseDateTime("2022-04-15 12:30"));
+        assertThrows(RuntimeException.class, () -> IsoDateTime.parseDate("2022-02-30"));
+    }
+}
@@ -0,0 +1,94 @@
+package mapper.utils;
+
+import mapper.exceptions.ExportMapperException;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NumbersTest {
+    private static long parseLong(String str) {
+        return Numbers.parseLong(str.toCharArray(), 0, str.length(), Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    private static double parseDouble(String str) {
+        return Numbers.parseDouble(str.toCharArray(), 0, str.length());
+    }
+
+    private static float parseFloat(String str) {
+        return Numbers.parseFloat(str.toCharArray(), 0, str.length());
+    }
+
+    @Test
+    void testIntegers() {
+        long[] values = {0, 1, -1, 9, 10, -10, Integer.MIN_VALUE, Integer.MAX_VALUE,
+                Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE + 1, 999_999_999_999_999_999L, 1_000_000_000_000_000_000L};
+        Random random = new Random(3);
+        for (int i = 0; i < values.length + 10_000; ++i) {
+            long value = i < values.length ? values[i] : random.nextLong() >> random.nextInt(64);
+            String str = Long.toString(value);
+            assertEquals(str, new OutputBuffer().appendLong(value).toString());
+            assertEquals(value, parseLong(str));
+        }
+
+        assertEquals(5, parseLong("+5"));
+        assertEquals(7, parseLong("007"));
+        for (String bad : new String[]{"", "-", "+", "1a", " 1", "9223372036854775808", "-9223372036854775809", "null"}) {
+            assertThrows(ExportMapperException.class, () -> parseLong(bad), bad);
+        }
+        assertThrows(ExportMapperException.class,
+                () -> Numbers.parseLong("128".toCharArray(), 0, 3, Byte.MIN_VALUE, Byte.MAX_VALUE));
+        assertEquals(Short.MIN_VALUE, Numbers.parseLong("-32768".toCharArray(), 0, 6, Short.MIN_VALUE, Short.MAX_VALUE));
+    }
+
+    @Test
+    void testDoubles() {
+        double[] values = {0.0, -0.0, 1.0, -1.0, 0.1, 0.5, 1.25, 9_999_999.0, 1e7, 1e-3, 1e-4, 123.456,
+                Double.MIN_VALUE, Double.MAX_VALUE, Double.MIN_NORMAL, Double.NaN,
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 1 / 3.0, 9007199254740993.0};
+        Random random = new Random(5);
+        for (int i = 0; i < values.length + 30_000; ++i) {
+            double value;
+            if (i < values.length) {
+                value = values[i];
+            } else if (i % 3 == 0) {
+                value = random.nextInt(20_000_000) - 10_000_000;
+            } else if (i % 3 == 1) {
+                value = Math.round(random.nextDouble() * 1e6) / 1e3;
+            } else {
+                value = Double.longBitsToDouble(random.nextLong());
+            }
+
+            String str = Double.toString(value);
+            assertEquals(str, new OutputBuffer().appendDouble(value).toString());
+            assertEquals(Double.doubleToLongBits(value), Double.doubleToLongBits(parseDouble(str)), str);
+
+            float f = (float) value;
+            String fStr = Float.toString(f);
+            assertEquals(fStr, new OutputBuffer().appendFloat(f).toString());
+            assertEquals(Float.floatToIntBits(f), Float.floatToIntBits(parseFloat(fStr)), fStr);
+        }
+
+        for (String str : new String[]{"1e22", "1e23", "123456789012345678", "4.9e-324", "0.3", "-0", "+2.5E-3", "1.", ".5", "1e-400"}) {
+            assertEquals(Double.doubleToLongBits(Double.parseDouble(str)), Double.doubleToLongBits(parseDouble(str)), str);
+            assertEquals(Float.floatToIntBits(Float.parseFloat(str)), Float.floatToIntBits(parseFloat(str)), str);
+        }
+        assertThrows(NumberFormatException.class, () -> parseDouble("1.2.3"));
+    }
+
+    @Test
+    void testInputBuffer() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; ++i) {
+            sb.append(-i * 7919L).append('"').append(i / 8.0).append('"');
+        }
+        InputBuffer in = new InputBuffer(new StringReader(sb.toString()));
+        for (int i = 0; i < 5000; ++i) {
+            assertEquals(-i * 7919L, in.readLong('"', Long.MIN_VALUE, Long.MAX_VALUE));
+            assertEquals(i / 8.0, in.readDouble('"'));
+        }
+        assertEquals(-1, in.peek());
+    }
+}
@@ -0,0 +1,68 @@
+package mapper.utils;
+
+import mapper.exceptions.ExportMapperException;
+import mapper.interfaces.Cleaner;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SinglePassCleanerTest {
+    private final Cleaner reference = new StringCleaner();
+    private final Cleaner cleaner = new SinglePassCleaner();
+
+    private static List<String> samples() {
+        List<String> samples = new ArrayList<>(List.of("", "plain", "null", "nul", "nnull", "nullnull",
+                "nulnull", "{\"key\": [1, null, 3]}", "строка 😀 [x]", "\uFFF0\uFFF4 escaped", "\uD83D"));
+
+        // Random strings over an alphabet dense in characters the cleaners treat specially.
+        char[] alphabet = "nul\"{}[] aZя\uFFF0\uFFF1\uFFF2\uFFF3\uFFF4\uFFF5".toCharArray();
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; ++i) {
+            char[] chars = new char[random.nextInt(12)];
+            for (int j = 0; j < chars.length; ++j) {
+                chars[j] = alphabet[random.nextInt(alphabet.length)];
+            }
+            samples.add(new String(chars));
+        }
+        return samples;
+    }
+
+    @Test
+    void testSameOutputAsStringCleaner() {
+        for (String str : samples()) {
+            String expected;
+            try {
+                expected = reference.cleanString(str);
+            } catch (ExportMapperException e) {
+                assertThrows(ExportMapperException.class, () -> cleaner.cleanString(str), str);
+                assertThrows(ExportMapperException.class, () -> cleaner.cleanString(str, new OutputBuffer()), str);
+                continue;
+            }
+
+            assertEquals(expected, cleaner.cleanString(str), str);
+            OutputBuffer out = new OutputBuffer();
+            out.append('>');
+            cleaner.cleanString(str, out);
+            assertEquals(">" + expected, out.toString(), str);
+            assertEquals(reference.recoverString(expected), cleaner.recoverString(expected), str);
+        }
+    }
+
+    @Test
+    void testSameRecoveryAsStringCleaner() {
+        for (String str : samples()) {
+            assertEquals(reference.recoverString(str), cleaner.recoverString(str), str);
+        }
+    }
+
+    @Test
+    void testUnchangedStringsAreNotCopied() {
+        String str = "Lorem ipsum dolor sit amet";
+        assertSame(str, cleaner.cleanString(str));
+        assertSame(str, cleaner.recoverString(str));
+    }
+}
@@ -0,0 +1,54 @@
+package mapper.utils;
+
+import mapper.exceptions.ExportMapperException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StructuralIndexTest {
+    private static StructuralIndex index(String str) {
+        return StructuralIndex.of(str.toCharArray(), 0, str.length());
+    }
+
+    @Test
+    void testClosing() {
+        String str = "{\"a#[I\":\"1,2\",\"b#x\":[\"t\":{\"c#y\":[]},\"[\":\"]\"]}";
+        StructuralIndex index = index(str);
+        assertEquals(str.length() - 1, index.closing(0));
+
+        int list = str.indexOf(":[") + 1;
+        assertEquals(str.length() - 2, index.closing(list));
+        int inner = str.indexOf("[]");
+        assertEquals(inner + 1, index.closing(inner));
+
+        assertThrows(ExportMapperException.class, () -> index.closing(1));
+        assertThrows(ExportMapperException.class, () -> index("{[]").closing(0));
+    }
+
+    @Test
+    void testElementBounds() {
+        String str = "[\"t\":{\"l#x\":[\"1\",\"2\"]},\"null\":\"null\",\"3\",{}]";
+        InputBuffer in = new InputBuffer(str + ",\"rest\"");
+        in.expect('[');
+
+        int[] bounds = in.elementBounds();
+        assertEquals(5, bounds.length);
+        assertEquals("\"t\":{\"l#x\":[\"1\",\"2\"]}", str.substring(bounds[0], bounds[1] - 1));
+        assertEquals("\"null\":\"null\"", str.substring(bounds[1], bounds[2] - 1));
+        assertEquals("\"3\"", str.substring(bounds[2], bounds[3] - 1));
+        assertEquals("{}", str.substring(bounds[3], bounds[4] - 1));
+        assertEquals(str.length(), bounds[4]);
+
+        InputBuffer element = in.slice(bounds[0], bounds[1] - 1);
+        assertEquals("t", element.readUntil(':').replace("\"", ""));
+        element.skipValue();
+        assertEquals(-1, element.peek());
+
+        in.moveTo(bounds[4]);
+        assertEquals(',', in.next());
+
+        InputBuffer broken = new InputBuffer("[\"1\" \"2\"]");
+        broken.expect('[');
+        assertThrows(ExportMapperException.class, broken::elementBounds);
+    }
+}